@@ -0,0 +1,71 @@
+package org.infestedstudios.inv.benchmarks;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.infestedstudios.inv.InfestedInv;
+import org.infestedstudios.inv.fake.FakePlayer;
+import org.infestedstudios.inv.fake.FakeServer;
+import org.infestedstudios.inv.manager.InfestedInvManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Click dispatch, through the listener and directly through {@link InfestedInv#handleClick(InventoryClickEvent)}.
+ * Every slot of the menu has a handler and clicks cycle through the slots.
+ */
+@State(Scope.Thread)
+public class ClickDispatchBenchmark {
+
+    private static final int SIZE = 54;
+
+    private InfestedInv menu;
+    private InfestedInvManager.InventoryListener listener;
+    private InventoryClickEvent[] events;
+    private Player player;
+    private int clicks;
+    private int next;
+
+    @Setup
+    public void setup() {
+        FakeServer server = FakeServer.install();
+        this.player = server.addPlayer("click-benchmark");
+        this.listener = new InfestedInvManager.InventoryListener(null);
+
+        this.menu = new InfestedInv(SIZE, "Click benchmark");
+        this.menu.setItemHandlers(0, SIZE - 1, e -> this.clicks++);
+        this.menu.open(this.player);
+
+        this.events = new InventoryClickEvent[SIZE];
+        for (int slot = 0; slot < SIZE; slot++) {
+            this.events[slot] = FakePlayer.of(this.player).click(slot, ClickType.LEFT);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.menu.discard();
+        FakeServer.install().removePlayer(this.player);
+    }
+
+    @Benchmark
+    public int listener() {
+        this.listener.onInventoryClick(nextEvent());
+        return this.clicks;
+    }
+
+    @Benchmark
+    public int handleClick() {
+        this.menu.handleClick(nextEvent());
+        return this.clicks;
+    }
+
+    private InventoryClickEvent nextEvent() {
+        InventoryClickEvent event = this.events[this.next];
+        this.next = this.next + 1 == SIZE ? 0 : this.next + 1;
+        return event;
+    }
+}
@@ -0,0 +1,39 @@
+package org.infestedstudios.inv.benchmarks;
+
+import org.infestedstudios.inv.InfestedInv;
+import org.infestedstudios.inv.fake.FakeServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Border and corner lookups of a 6 rows menu.
+ */
+@State(Scope.Thread)
+public class GeometryBenchmark {
+
+    private InfestedInv menu;
+
+    @Setup
+    public void setup() {
+        FakeServer.install();
+        this.menu = new InfestedInv(54, "Geometry benchmark");
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.menu.discard();
+    }
+
+    @Benchmark
+    public int[] getBorders() {
+        return this.menu.getBorders();
+    }
+
+    @Benchmark
+    public int[] getCorners() {
+        return this.menu.getCorners();
+    }
+}
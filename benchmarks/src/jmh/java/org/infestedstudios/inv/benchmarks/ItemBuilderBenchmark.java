@@ -0,0 +1,46 @@
+package org.infestedstudios.inv.benchmarks;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemFlag;
+import org.bukkit.inventory.ItemStack;
+import org.infestedstudios.inv.fake.FakeServer;
+import org.infestedstudios.inv.utils.ItemBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A typical menu button built with an {@link ItemBuilder} chain, with and without deferred meta edits.
+ */
+@State(Scope.Thread)
+public class ItemBuilderBenchmark {
+
+    @Setup
+    public void setup() {
+        FakeServer.install();
+    }
+
+    @Benchmark
+    public ItemStack chain() {
+        return new ItemBuilder(Material.DIAMOND_SWORD)
+                .name("Button")
+                .lore("First line", "Second line")
+                .addLore("Third line")
+                .flags(ItemFlag.HIDE_ATTRIBUTES)
+                .amount(2)
+                .build();
+    }
+
+    @Benchmark
+    public ItemStack deferredChain() {
+        return new ItemBuilder(Material.DIAMOND_SWORD)
+                .deferMeta()
+                .name("Button")
+                .lore("First line", "Second line")
+                .addLore("Third line")
+                .flags(ItemFlag.HIDE_ATTRIBUTES)
+                .amount(2)
+                .build();
+    }
+}
@@ -0,0 +1,74 @@
+package org.infestedstudios.inv.benchmarks;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.infestedstudios.inv.InfestedInv;
+import org.infestedstudios.inv.InventoryScheme;
+import org.infestedstudios.inv.fake.FakeServer;
+import org.infestedstudios.inv.templates.InventoryTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Application of a full 6 rows scheme and of a template with a parent and a layer.
+ */
+@State(Scope.Thread)
+public class LayoutBenchmark {
+
+    private InfestedInv menu;
+    private InventoryScheme scheme;
+    private InventoryTemplate template;
+
+    @Setup
+    public void setup() {
+        FakeServer.install();
+        this.menu = new InfestedInv(54, "Layout benchmark");
+
+        ItemStack border = new ItemStack(Material.BLACK_STAINED_GLASS_PANE);
+        ItemStack button = new ItemStack(Material.EMERALD);
+        ItemStack filler = new ItemStack(Material.GRAY_STAINED_GLASS_PANE);
+
+        this.scheme = new InventoryScheme()
+                .masks("xxxxxxxxx",
+                        "x-------x",
+                        "x--b-b--x",
+                        "x--b-b--x",
+                        "x-------x",
+                        "xxxxbxxxx")
+                .bindItem('x', border)
+                .bindItem('-', filler)
+                .bindItem('b', button, e -> e.setCancelled(true));
+
+        InventoryTemplate base = new InventoryTemplate();
+        for (int slot = 0; slot < 54; slot++) {
+            base.addTemplateItem(slot, filler, null);
+        }
+        InventoryTemplate borders = new InventoryTemplate();
+        for (int slot : this.menu.getBorders()) {
+            borders.addTemplateItem(slot, border, null);
+        }
+        this.template = new InventoryTemplate(base);
+        this.template.addLayer(borders);
+        this.template.addTemplateItem(22, button, e -> e.setCancelled(true));
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.menu.discard();
+    }
+
+    @Benchmark
+    public InfestedInv schemeApply() {
+        this.scheme.apply(this.menu);
+        return this.menu;
+    }
+
+    @Benchmark
+    public InfestedInv templateApply() {
+        this.template.applyTemplate(this.menu);
+        return this.menu;
+    }
+}
@@ -0,0 +1,52 @@
+package org.infestedstudios.inv.benchmarks;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.infestedstudios.inv.PaginatedInfestedInv;
+import org.infestedstudios.inv.fake.FakeServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filling a paginated menu with many items, one {@link PaginatedInfestedInv#addItemToPage} call per item.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PaginationBenchmark {
+
+    @Param({"10000", "50000"})
+    public int items;
+
+    private ItemStack item;
+    private ItemStack nextPageItem;
+    private ItemStack prevPageItem;
+
+    @Setup
+    public void setup() {
+        FakeServer.install();
+        this.item = new ItemStack(Material.PAPER);
+        this.nextPageItem = new ItemStack(Material.ARROW);
+        this.prevPageItem = new ItemStack(Material.FEATHER);
+    }
+
+    @Benchmark
+    public int addItemToPage() {
+        PaginatedInfestedInv menu = new PaginatedInfestedInv(54, "Pagination benchmark", this.nextPageItem, this.prevPageItem);
+        for (int i = 0; i < this.items; i++) {
+            menu.addItemToPage(this.item, null);
+        }
+
+        int pages = menu.getPageCount();
+        menu.discard();
+        return pages;
+    }
+}
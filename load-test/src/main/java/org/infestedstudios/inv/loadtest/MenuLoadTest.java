@@ -0,0 +1,239 @@
+package org.infestedstudios.inv.loadtest;
+
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.infestedstudios.inv.InfestedInv;
+import org.infestedstudios.inv.PaginatedInfestedInv;
+import org.infestedstudios.inv.fake.FakePlayer;
+import org.infestedstudios.inv.fake.FakePlugin;
+import org.infestedstudios.inv.fake.FakeServer;
+import org.infestedstudios.inv.manager.InfestedInvManager;
+import org.infestedstudios.inv.metrics.LatencyHistogram;
+import org.infestedstudios.inv.metrics.MenuMetrics;
+import org.infestedstudios.inv.metrics.MenuStats;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless load test driving open, click and close storms on thousands of menus through the
+ * InfestedInv listener, on an in-memory server ticked as fast as possible.
+ * <p>
+ * Every tick, a fraction of the players clicks a random slot of its open menu, opens another menu
+ * or closes its menu. The test reports the event throughput, the latency of each tick (player
+ * actions and scheduled tasks) and the heap growth, including the heap retained once every menu
+ * was closed and discarded.
+ * <p>
+ * Options, all optional: {@code --players 2000 --menus 5000 --ticks 1200 --warmup 200
+ * --activity 0.5 --seed 42 --metrics true}.
+ */
+public final class MenuLoadTest {
+
+    private static final int MENU_SIZE = 54;
+    private static final int PAGINATED_ITEMS = 200;
+    private static final int UPDATE_PERIOD = 20;
+
+    private final FakeServer server;
+    private final Plugin plugin;
+    private final SplittableRandom random;
+    private final int playerCount;
+    private final int menuCount;
+    private final double activity;
+
+    private final List<Player> players = new ArrayList<>();
+    private final List<InfestedInv> menus = new ArrayList<>();
+    private final LatencyHistogram tickLatency = new LatencyHistogram();
+
+    private long clicks;
+    private long opens;
+    private long closes;
+    private long handledClicks;
+
+    private MenuLoadTest(Map<String, String> options) {
+        this.server = FakeServer.install();
+        this.plugin = FakePlugin.create("InfestedInvLoadTest");
+        this.random = new SplittableRandom(Long.parseLong(options.getOrDefault("seed", "42")));
+        this.playerCount = Integer.parseInt(options.getOrDefault("players", "2000"));
+        this.menuCount = Integer.parseInt(options.getOrDefault("menus", "5000"));
+        this.activity = Double.parseDouble(options.getOrDefault("activity", "0.5"));
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = parseOptions(args);
+        int ticks = Integer.parseInt(options.getOrDefault("ticks", "1200"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "200"));
+        MenuMetrics.setEnabled(Boolean.parseBoolean(options.getOrDefault("metrics", "false")));
+
+        MenuLoadTest test = new MenuLoadTest(options);
+        long heapBaseline = usedHeap();
+
+        test.setUp();
+        long heapAfterSetup = usedHeap();
+
+        test.run(warmup);
+        test.resetCounters();
+        long heapAfterWarmup = usedHeap();
+
+        long start = System.nanoTime();
+        test.run(ticks);
+        long elapsed = System.nanoTime() - start;
+        long heapAfterRun = usedHeap();
+
+        test.tearDown();
+        long heapAfterTearDown = usedHeap();
+
+        test.report(ticks, elapsed);
+        System.out.printf(Locale.ROOT, "Heap: baseline %s, after setup %s, after warmup %s, after run %s (%+d KiB during run), after teardown %s (%+d KiB retained)%n",
+                kib(heapBaseline), kib(heapAfterSetup), kib(heapAfterWarmup), kib(heapAfterRun),
+                (heapAfterRun - heapAfterWarmup) / 1024, kib(heapAfterTearDown), (heapAfterTearDown - heapBaseline) / 1024);
+    }
+
+    private void setUp() {
+        InfestedInvManager.register(this.plugin);
+
+        ItemStack button = new ItemStack(Material.EMERALD);
+        ItemStack nextPage = new ItemStack(Material.ARROW);
+        ItemStack prevPage = new ItemStack(Material.FEATHER);
+
+        for (int i = 0; i < this.menuCount; i++) {
+            InfestedInv menu;
+            int kind = i % 5;
+
+            if (kind == 4) {
+                PaginatedInfestedInv paginated = new PaginatedInfestedInv(MENU_SIZE, "Paginated #" + i, nextPage, prevPage);
+                for (int item = 0; item < PAGINATED_ITEMS; item++) {
+                    paginated.addItemToPage(button, e -> this.handledClicks++);
+                }
+                menu = paginated;
+            } else {
+                menu = new InfestedInv(MENU_SIZE, "Menu #" + i);
+                menu.setItems(menu.getGeometry().all(), button, e -> this.handledClicks++);
+
+                if (kind == 3) {
+                    InfestedInv updated = menu;
+                    menu.startUpdating(this.plugin, UPDATE_PERIOD, () -> {
+                        if (updated.hasViewers()) {
+                            updated.setItem(this.random.nextInt(MENU_SIZE), new ItemStack(Material.GOLD_INGOT));
+                        }
+                    });
+                }
+            }
+            this.menus.add(menu);
+        }
+
+        for (int i = 0; i < this.playerCount; i++) {
+            this.players.add(this.server.addPlayer("LoadTest" + i));
+        }
+    }
+
+    private void run(int ticks) {
+        for (int tick = 0; tick < ticks; tick++) {
+            long start = System.nanoTime();
+
+            for (Player player : this.players) {
+                if (this.random.nextDouble() < this.activity) {
+                    act(player);
+                }
+            }
+            this.server.tick();
+
+            this.tickLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    private void act(Player player) {
+        FakePlayer fake = FakePlayer.of(player);
+        boolean menuOpen = InfestedInv.of(player.getOpenInventory().getTopInventory()) != null;
+        double action = this.random.nextDouble();
+
+        if (!menuOpen || action < 0.12) {
+            this.menus.get(this.random.nextInt(this.menus.size())).open(player);
+            this.opens++;
+        } else if (action < 0.20) {
+            player.closeInventory();
+            this.closes++;
+        } else {
+            // Clicks also hit the player inventory below the menu
+            fake.performClick(this.random.nextInt(MENU_SIZE + 36), this.random.nextInt(8) == 0 ? ClickType.SHIFT_LEFT : ClickType.LEFT);
+            this.clicks++;
+        }
+    }
+
+    private void tearDown() {
+        this.server.getPluginManager().disablePlugin(this.plugin);
+        this.server.clearPlayers();
+        this.menus.forEach(InfestedInv::discard);
+        this.menus.clear();
+        this.players.clear();
+        this.server.tick();
+    }
+
+    private void resetCounters() {
+        this.clicks = 0;
+        this.opens = 0;
+        this.closes = 0;
+        this.handledClicks = 0;
+        this.tickLatency.reset();
+        MenuMetrics.reset();
+    }
+
+    private void report(int ticks, long elapsedNanos) {
+        double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        long events = this.clicks + this.opens + this.closes;
+
+        System.out.printf(Locale.ROOT, "%d players, %d menus, %d ticks in %.2f s (%.0f ticks/s)%n",
+                this.playerCount, this.menuCount, ticks, seconds, ticks / seconds);
+        System.out.printf(Locale.ROOT, "Actions: %d clicks (%d handled), %d opens, %d closes, %.0f actions/s%n",
+                this.clicks, this.handledClicks, this.opens, this.closes, events / seconds);
+        System.out.printf(Locale.ROOT, "Tick latency: mean %s, p50 %s, p99 %s, max %s%n",
+                millis(this.tickLatency.getMeanNanos()), millis(this.tickLatency.getPercentileNanos(50)),
+                millis(this.tickLatency.getPercentileNanos(99)), millis(this.tickLatency.getMaxNanos()));
+
+        if (MenuMetrics.isEnabled()) {
+            for (MenuStats stats : MenuMetrics.getAll().values()) {
+                System.out.printf(Locale.ROOT, "%s: %d opens, %d clicks, click p99 %s, open p99 %s, update p99 %s%n",
+                        stats.getId(), stats.getOpens(), stats.getClicks(),
+                        millis(stats.getClickLatency().getPercentileNanos(99)),
+                        millis(stats.getOpenLatency().getPercentileNanos(99)),
+                        millis(stats.getUpdateLatency().getPercentileNanos(99)));
+            }
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Invalid option: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static String kib(long bytes) {
+        return (bytes / 1024) + " KiB";
+    }
+
+    private static String millis(double nanos) {
+        return String.format(Locale.ROOT, "%.3f ms", nanos / TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
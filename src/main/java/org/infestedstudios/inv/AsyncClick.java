@@ -0,0 +1,157 @@
+package org.infestedstudios.inv;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.ItemStack;
+import org.infestedstudios.inv.manager.MenuTicker;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Snapshot of a click given to the body of an {@link AsyncClickHandler}.
+ * <p>
+ * The snapshot is taken on the main thread and can be read from any thread. Bukkit objects,
+ * including the menu and the player, must only be used in tasks passed to {@link #sync(Runnable)}
+ * or {@link #withPlayer(Consumer)}, which run on the main thread at the next tick.
+ * <p>
+ * A pooled menu can be released and given to another player before the body ends. The menu
+ * generation is captured with the click, and the follow-ups of a menu reset since then are skipped.
+ */
+public final class AsyncClick {
+
+    private final InfestedInv menu;
+    private final int generation;
+    private final UUID playerId;
+    private final int rawSlot;
+    private final int slot;
+    private final ClickType click;
+    private final InventoryAction action;
+    private final ItemStack currentItem;
+    private final MenuTicker ticker;
+
+    AsyncClick(InfestedInv menu, InventoryClickEvent e, MenuTicker ticker) {
+        this.menu = menu;
+        this.generation = menu != null ? menu.getGeneration() : 0;
+        this.playerId = e.getWhoClicked().getUniqueId();
+        this.rawSlot = e.getRawSlot();
+        this.slot = e.getSlot();
+        this.click = e.getClick();
+        this.action = e.getAction();
+        this.currentItem = e.getCurrentItem() != null ? e.getCurrentItem().clone() : null;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Get the menu which was clicked. The menu must only be used on the main thread.
+     *
+     * @return The menu, or null if the handler was not called by a menu.
+     */
+    public InfestedInv getMenu() {
+        return this.menu;
+    }
+
+    public UUID getPlayerId() {
+        return this.playerId;
+    }
+
+    public int getRawSlot() {
+        return this.rawSlot;
+    }
+
+    public int getSlot() {
+        return this.slot;
+    }
+
+    public ClickType getClick() {
+        return this.click;
+    }
+
+    public InventoryAction getAction() {
+        return this.action;
+    }
+
+    /**
+     * Get a copy of the clicked item, taken when the click happened.
+     *
+     * @return The clicked item, or null if the slot was empty.
+     */
+    public ItemStack getCurrentItem() {
+        return this.currentItem != null ? this.currentItem.clone() : null;
+    }
+
+    /**
+     * Check if the clicked menu was reset for a new use since the click, like a pooled menu given
+     * to another player. This method must be called on the main thread.
+     *
+     * @return true if the follow-ups of this click are skipped.
+     */
+    public boolean isStale() {
+        return this.menu != null && this.menu.getGeneration() != this.generation;
+    }
+
+    /**
+     * Run a task on the main thread at the next tick, unless the menu is stale by then.
+     * This method can be called from any thread.
+     *
+     * @param task The task to run.
+     */
+    public void sync(Runnable task) {
+        Objects.requireNonNull(task, "task");
+        this.ticker.runNextTick(() -> {
+            if (!isStale()) {
+                task.run();
+            }
+        });
+    }
+
+    /**
+     * Run a task with the player on the main thread at the next tick, if the player is still online
+     * and the menu is not stale.
+     *
+     * @param task The task to run.
+     */
+    public void withPlayer(Consumer<Player> task) {
+        Objects.requireNonNull(task, "task");
+        sync(() -> {
+            Player player = Bukkit.getPlayer(this.playerId);
+            if (player != null) {
+                task.accept(player);
+            }
+        });
+    }
+
+    /**
+     * Set an item in a slot of the menu at the next tick.
+     *
+     * @param slot The slot to set the item in.
+     * @param item The item to set, or null to clear the slot.
+     * @throws IllegalStateException if the handler was not called by a menu
+     */
+    public void setItem(int slot, ItemStack item) {
+        InfestedInv target = requireMenu();
+        sync(() -> target.setItem(slot, item));
+    }
+
+    /**
+     * Close the inventory of the player at the next tick, if the player is still viewing the clicked menu.
+     */
+    public void closeInventory() {
+        withPlayer(player -> {
+            if (this.menu == null || InfestedInv.of(player.getOpenInventory().getTopInventory()) == this.menu) {
+                player.closeInventory();
+            }
+        });
+    }
+
+    private InfestedInv requireMenu() {
+        if (this.menu == null) {
+            throw new IllegalStateException("Click handler was not called by a menu");
+        }
+        return this.menu;
+    }
+}
@@ -0,0 +1,95 @@
+package org.infestedstudios.inv;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.infestedstudios.inv.manager.InfestedInvManager;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Click handler running its body off the main thread, for handlers calling slow services like
+ * databases or economy plugins.
+ * <p>
+ * The event is cancelled synchronously before anything else, so items stay protected. An optional
+ * synchronous handler then runs on the main thread with the event, and may still change its
+ * cancellation. The body receives an {@link AsyncClick}, a snapshot of the click, and runs on the
+ * executor of {@link InfestedInvManager#getAsyncExecutor()}. Inventory changes made by the body
+ * must go through {@link AsyncClick#sync(Runnable)}, which applies them on the main thread at the next tick.
+ * <p>
+ * The handler can be used anywhere a click handler is accepted: slot handlers, batches, schemes and templates.
+ */
+public final class AsyncClickHandler implements Consumer<InventoryClickEvent> {
+
+    private final Consumer<InventoryClickEvent> syncHandler;
+    private final Consumer<AsyncClick> body;
+
+    private AsyncClickHandler(Consumer<InventoryClickEvent> syncHandler, Consumer<AsyncClick> body) {
+        this.syncHandler = syncHandler;
+        this.body = Objects.requireNonNull(body, "body");
+    }
+
+    /**
+     * Create an asynchronous click handler.
+     *
+     * @param body The handler body, run off the main thread.
+     * @return The click handler.
+     */
+    public static AsyncClickHandler of(Consumer<AsyncClick> body) {
+        return new AsyncClickHandler(null, body);
+    }
+
+    /**
+     * Create an asynchronous click handler with a synchronous part.
+     *
+     * @param syncHandler The handler run on the main thread with the event, before the body.
+     * @param body        The handler body, run off the main thread.
+     * @return The click handler.
+     */
+    public static AsyncClickHandler of(Consumer<InventoryClickEvent> syncHandler, Consumer<AsyncClick> body) {
+        return new AsyncClickHandler(Objects.requireNonNull(syncHandler, "syncHandler"), body);
+    }
+
+    @Override
+    public void accept(InventoryClickEvent e) {
+        e.setCancelled(true);
+        if (this.syncHandler != null) {
+            this.syncHandler.accept(e);
+        }
+
+        AsyncClick click = new AsyncClick(InfestedInv.of(e.getInventory()), e, InfestedInvManager.getTicker());
+        Executor executor = InfestedInvManager.getAsyncExecutor();
+        try {
+            executor.execute(() -> {
+                try {
+                    this.body.accept(click);
+                } catch (RuntimeException ex) {
+                    Bukkit.getLogger().log(Level.WARNING, "Error while running an async click handler", ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            Bukkit.getLogger().log(Level.WARNING, "Async click handler rejected by its executor", ex);
+        }
+    }
+
+    /**
+     * Get the synchronous part of this handler.
+     *
+     * @return The synchronous handler, or null if there is none.
+     */
+    public Consumer<InventoryClickEvent> getSyncHandler() {
+        return this.syncHandler;
+    }
+
+    /**
+     * Get the asynchronous body of this handler.
+     *
+     * @return The handler body.
+     */
+    public Consumer<AsyncClick> getBody() {
+        return this.body;
+    }
+}
@@ -0,0 +1,119 @@
+package org.infestedstudios.inv;
+
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryAction;
+
+/**
+ * Immutable filter on the click type and inventory action of a click, stored as two bit masks
+ * indexed by enum ordinal, so matching a click is two bit tests.
+ */
+public final class ClickFilter {
+
+    /**
+     * A filter matching every click.
+     */
+    public static final ClickFilter ALL = new ClickFilter(-1L, -1L);
+
+    private final long clickMask;
+    private final long actionMask;
+
+    private ClickFilter(long clickMask, long actionMask) {
+        this.clickMask = clickMask;
+        this.actionMask = actionMask;
+    }
+
+    /**
+     * Create a filter matching some click types, with any action.
+     *
+     * @param types The matched click types.
+     * @return The filter.
+     */
+    public static ClickFilter clicks(ClickType... types) {
+        return ALL.withClicks(types);
+    }
+
+    /**
+     * Create a filter matching some inventory actions, with any click type.
+     *
+     * @param actions The matched actions.
+     * @return The filter.
+     */
+    public static ClickFilter actions(InventoryAction... actions) {
+        return ALL.withActions(actions);
+    }
+
+    /**
+     * Create a filter matching the actions of this filter and only the given click types.
+     *
+     * @param types The matched click types.
+     * @return The new filter.
+     */
+    public ClickFilter withClicks(ClickType... types) {
+        long mask = 0L;
+        for (ClickType type : types) {
+            mask |= bit(type.ordinal());
+        }
+        return new ClickFilter(mask, this.actionMask);
+    }
+
+    /**
+     * Create a filter matching the click types of this filter and only the given actions.
+     *
+     * @param actions The matched actions.
+     * @return The new filter.
+     */
+    public ClickFilter withActions(InventoryAction... actions) {
+        long mask = 0L;
+        for (InventoryAction action : actions) {
+            mask |= bit(action.ordinal());
+        }
+        return new ClickFilter(this.clickMask, mask);
+    }
+
+    /**
+     * Check if a click matches this filter.
+     *
+     * @param type   The click type.
+     * @param action The inventory action.
+     * @return true if both the click type and the action are matched.
+     */
+    public boolean matches(ClickType type, InventoryAction action) {
+        return matches(this.clickMask, this.actionMask, type, action);
+    }
+
+    long clickMask() {
+        return this.clickMask;
+    }
+
+    long actionMask() {
+        return this.actionMask;
+    }
+
+    static boolean matches(long clickMask, long actionMask, ClickType type, InventoryAction action) {
+        return (clickMask & (1L << type.ordinal())) != 0 && (actionMask & (1L << action.ordinal())) != 0;
+    }
+
+    private static long bit(int ordinal) {
+        if (ordinal >= Long.SIZE) {
+            throw new IllegalArgumentException("Unsupported enum ordinal: " + ordinal);
+        }
+        return 1L << ordinal;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ClickFilter)) {
+            return false;
+        }
+        ClickFilter other = (ClickFilter) o;
+        return this.clickMask == other.clickMask && this.actionMask == other.actionMask;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(this.clickMask) + Long.hashCode(this.actionMask);
+    }
+}
@@ -0,0 +1,63 @@
+package org.infestedstudios.inv;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Click rate limit of a menu: a per-player token bucket and a per-slot debounce.
+ * <p>
+ * Clicks over the limit are cancelled by the listener before any handler of the menu runs.
+ */
+public final class ClickLimit {
+
+    private final double clicksPerSecond;
+    private final int burst;
+    private final long debounceNanos;
+
+    private ClickLimit(double clicksPerSecond, int burst, long debounceNanos) {
+        this.clicksPerSecond = clicksPerSecond;
+        this.burst = burst;
+        this.debounceNanos = debounceNanos;
+    }
+
+    /**
+     * Create a click limit.
+     *
+     * @param clicksPerSecond The number of clicks per second a player can sustain.
+     * @param burst           The number of clicks a player can make at once after being idle.
+     * @param debounce        The minimum delay between two clicks on the same slot, 0 to disable.
+     * @param unit            The time unit of the debounce delay.
+     * @return The click limit.
+     */
+    public static ClickLimit of(double clicksPerSecond, int burst, long debounce, TimeUnit unit) {
+        if (clicksPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Click rate and burst must be positive");
+        }
+        if (debounce < 0) {
+            throw new IllegalArgumentException("debounce cannot be negative: " + debounce);
+        }
+        return new ClickLimit(clicksPerSecond, burst, unit.toNanos(debounce));
+    }
+
+    /**
+     * Create a click limit without debounce.
+     *
+     * @param clicksPerSecond The number of clicks per second a player can sustain.
+     * @param burst           The number of clicks a player can make at once after being idle.
+     * @return The click limit.
+     */
+    public static ClickLimit of(double clicksPerSecond, int burst) {
+        return of(clicksPerSecond, burst, 0, TimeUnit.NANOSECONDS);
+    }
+
+    public double getClicksPerSecond() {
+        return this.clicksPerSecond;
+    }
+
+    public int getBurst() {
+        return this.burst;
+    }
+
+    public long getDebounceNanos() {
+        return this.debounceNanos;
+    }
+}
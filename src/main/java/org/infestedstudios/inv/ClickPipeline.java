@@ -0,0 +1,95 @@
+package org.infestedstudios.inv;
+
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Ordered click stages of a menu.
+ * <p>
+ * Stages are run by descending priority, then in the order they were added. The sorted stages
+ * are compiled into a flat array, rebuilt only after a stage is added or removed, so dispatching
+ * a click only walks an array and checks two bit masks per stage.
+ */
+final class ClickPipeline {
+
+    private static final Entry[] EMPTY = new Entry[0];
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    private Entry[] compiled = EMPTY;
+    private long nextOrder;
+
+    void add(int priority, ClickFilter filter, ClickStage stage) {
+        this.entries.add(new Entry(priority, this.nextOrder++, filter, stage));
+        this.compiled = null;
+    }
+
+    boolean remove(ClickStage stage) {
+        if (this.entries.removeIf(entry -> entry.stage == stage)) {
+            this.compiled = null;
+            return true;
+        }
+        return false;
+    }
+
+    void clear() {
+        this.entries.clear();
+        this.compiled = EMPTY;
+    }
+
+    /**
+     * Run the stages matching a click.
+     *
+     * @param e The inventory click event.
+     * @return true if every stage let the click continue.
+     */
+    boolean handle(InventoryClickEvent e) {
+        Entry[] stages = this.compiled;
+        if (stages == null) {
+            stages = compile();
+        }
+        if (stages.length == 0) {
+            return true;
+        }
+
+        ClickType type = e.getClick();
+        InventoryAction action = e.getAction();
+        for (Entry entry : stages) {
+            if (ClickFilter.matches(entry.clickMask, entry.actionMask, type, action)
+                    && entry.stage.handle(e) == ClickStage.Result.STOP) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Entry[] compile() {
+        Entry[] stages = this.entries.toArray(EMPTY);
+        Arrays.sort(stages, Comparator.comparingInt((Entry entry) -> -entry.priority).thenComparingLong(entry -> entry.order));
+        this.compiled = stages;
+        return stages;
+    }
+
+    private static final class Entry {
+
+        private final int priority;
+        private final long order;
+        private final long clickMask;
+        private final long actionMask;
+        private final ClickStage stage;
+
+        private Entry(int priority, long order, ClickFilter filter, ClickStage stage) {
+            this.priority = priority;
+            this.order = order;
+            this.clickMask = filter.clickMask();
+            this.actionMask = filter.actionMask();
+            this.stage = stage;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.infestedstudios.inv;
+
+import org.bukkit.event.inventory.InventoryClickEvent;
+
+/**
+ * Stage of the click pipeline of an {@link InfestedInv}, able to stop the stages after it.
+ */
+@FunctionalInterface
+public interface ClickStage {
+
+    /**
+     * Handle a click matching the filter of this stage.
+     *
+     * @param event The inventory click event.
+     * @return {@link Result#STOP} to skip the next stages and the slot handler, {@link Result#CONTINUE} otherwise.
+     */
+    Result handle(InventoryClickEvent event);
+
+    /**
+     * Result of a click stage.
+     */
+    enum Result {
+        CONTINUE,
+        STOP
+    }
+}
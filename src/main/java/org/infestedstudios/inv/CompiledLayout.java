@@ -0,0 +1,164 @@
+package org.infestedstudios.inv;
+
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Immutable slot-to-item and slot-to-handler arrays, applied to a menu with a single
+ * {@link org.bukkit.inventory.Inventory#setContents(ItemStack[])} call and a handler table copy.
+ * <p>
+ * A layout only defines some slots: the other slots of the menu are left untouched when it is applied.
+ * Layouts are meant to be compiled once and shared by every menu using them.
+ */
+public final class CompiledLayout {
+
+    private final ItemStack[] items;
+    private final Consumer<InventoryClickEvent>[] handlers;
+    private final int[] slots;
+
+    private CompiledLayout(ItemStack[] items, Consumer<InventoryClickEvent>[] handlers, int[] slots) {
+        this.items = items;
+        this.handlers = handlers;
+        this.slots = slots;
+    }
+
+    /**
+     * Get the number of slots covered by this layout, starting from slot 0.
+     *
+     * @return The layout size.
+     */
+    public int size() {
+        return this.items.length;
+    }
+
+    /**
+     * Get the slots defined by this layout.
+     *
+     * @return A copy of the defined slots.
+     */
+    public int[] getSlots() {
+        return this.slots.clone();
+    }
+
+    /**
+     * Get the item of a slot.
+     *
+     * @param slot The slot.
+     * @return The item of the slot, or null if the slot is empty or not defined.
+     */
+    public ItemStack getItem(int slot) {
+        return slot >= 0 && slot < this.items.length ? this.items[slot] : null;
+    }
+
+    /**
+     * Get the click handler of a slot.
+     *
+     * @param slot The slot.
+     * @return The handler of the slot, or null if there is none.
+     */
+    public Consumer<InventoryClickEvent> getHandler(int slot) {
+        return slot >= 0 && slot < this.handlers.length ? this.handlers[slot] : null;
+    }
+
+    /**
+     * Apply this layout to a menu.
+     *
+     * @param inv The menu to apply this layout to.
+     */
+    public void apply(InfestedInv inv) {
+        inv.applyLayout(this);
+    }
+
+    // The highest defined slot, or -1 if no slot is defined
+    int lastSlot() {
+        return this.slots.length == 0 ? -1 : this.slots[this.slots.length - 1];
+    }
+
+    ItemStack[] merge(ItemStack[] contents) {
+        if (this.slots.length == contents.length && this.items.length == contents.length) {
+            return this.items.clone();
+        }
+
+        for (int slot : this.slots) {
+            contents[slot] = this.items[slot];
+        }
+        return contents;
+    }
+
+    void copyHandlers(SlotHandlerTable table) {
+        for (int slot : this.slots) {
+            table.set(slot, this.handlers[slot]);
+        }
+    }
+
+    /**
+     * Builder of {@link CompiledLayout}.
+     */
+    public static final class Builder {
+
+        private final ItemStack[] items;
+        private final Consumer<InventoryClickEvent>[] handlers;
+        private final boolean[] defined;
+
+        /**
+         * Create a new layout builder.
+         *
+         * @param size The number of slots covered by the layout.
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public Builder(int size) {
+            this.items = new ItemStack[size];
+            this.handlers = new Consumer[size];
+            this.defined = new boolean[size];
+        }
+
+        /**
+         * Define a slot of the layout. Defining a slot again replaces its item and handler.
+         *
+         * @param slot    The slot.
+         * @param item    The item of the slot, or null to clear the slot.
+         * @param handler The click handler of the slot, may be null.
+         * @return this builder
+         */
+        public Builder set(int slot, ItemStack item, Consumer<InventoryClickEvent> handler) {
+            this.items[slot] = item;
+            this.handlers[slot] = handler;
+            this.defined[slot] = true;
+            return this;
+        }
+
+        /**
+         * Define every slot of another layout in this builder, replacing the slots already defined.
+         *
+         * @param layout The layout to copy.
+         * @return this builder
+         */
+        public Builder set(CompiledLayout layout) {
+            for (int slot : layout.slots) {
+                if (slot < this.items.length) {
+                    set(slot, layout.items[slot], layout.handlers[slot]);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Build the immutable layout.
+         *
+         * @return The compiled layout.
+         */
+        public CompiledLayout build() {
+            int count = 0;
+            int[] slots = new int[this.defined.length];
+            for (int slot = 0; slot < this.defined.length; slot++) {
+                if (this.defined[slot]) {
+                    slots[count++] = slot;
+                }
+            }
+            return new CompiledLayout(this.items.clone(), this.handlers.clone(), Arrays.copyOf(slots, count));
+        }
+    }
+}
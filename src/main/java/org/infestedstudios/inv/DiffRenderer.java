@@ -0,0 +1,73 @@
+package org.infestedstudios.inv;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.function.IntFunction;
+
+/**
+ * Render task writing only the slots whose content changed since the last render.
+ * <p>
+ * Each slot keeps the last item committed to it with its fingerprint. An item is written again
+ * unless it has the same fingerprint and is equal to the last item, so a render function returning
+ * the same content every tick does not send any slot update to the viewers, and two different items
+ * with the same fingerprint are still written. Nothing is rendered while the menu has no viewer.
+ */
+final class DiffRenderer implements Runnable {
+
+    private static final int EMPTY = 0;
+
+    private final InfestedInv inv;
+    private final IntFunction<ItemStack> renderFunction;
+    private final int[] fingerprints;
+    private final ItemStack[] lastItems;
+
+    DiffRenderer(InfestedInv inv, IntFunction<ItemStack> renderFunction) {
+        this.inv = inv;
+        this.renderFunction = renderFunction;
+        this.fingerprints = new int[inv.getInventory().getSize()];
+        this.lastItems = inv.getInventory().getContents();
+
+        for (int slot = 0; slot < this.fingerprints.length; slot++) {
+            this.fingerprints[slot] = fingerprint(this.lastItems[slot]);
+        }
+    }
+
+    @Override
+    public void run() {
+        if (!this.inv.hasViewers()) {
+            return;
+        }
+
+        for (int slot = 0; slot < this.fingerprints.length; slot++) {
+            ItemStack item = this.renderFunction.apply(slot);
+            int fingerprint = fingerprint(item);
+
+            if (fingerprint != this.fingerprints[slot] || !sameItem(item, this.lastItems[slot])) {
+                this.fingerprints[slot] = fingerprint;
+                this.lastItems[slot] = item;
+                this.inv.updateSlot(slot, item);
+            }
+        }
+    }
+
+    // Only called when the fingerprints match, so the items are rarely compared
+    private static boolean sameItem(ItemStack item, ItemStack last) {
+        return item == last || (item != null && item.equals(last));
+    }
+
+    /**
+     * Compute a cheap fingerprint of an item. For a plain {@link ItemStack} the hash code is computed
+     * from the type, amount, durability and meta without cloning the meta.
+     *
+     * @param item The item, may be null.
+     * @return The item fingerprint, {@link #EMPTY} only for empty slots.
+     */
+    static int fingerprint(ItemStack item) {
+        if (item == null) {
+            return EMPTY;
+        }
+
+        int hash = item.hashCode();
+        return hash != EMPTY ? hash : 1;
+    }
+}
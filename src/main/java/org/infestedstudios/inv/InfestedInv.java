@@ -2,6 +2,7 @@ package org.infestedstudios.inv;
 
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.ClickType;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.inventory.InventoryOpenEvent;
@@ -9,29 +10,49 @@ import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
+import org.infestedstudios.inv.manager.InfestedInvManager;
+import org.infestedstudios.inv.manager.MenuTicker;
+import org.infestedstudios.inv.metrics.MenuMetrics;
+import org.infestedstudios.inv.metrics.MenuStats;
+import org.infestedstudios.inv.utils.FrozenItem;
 import org.infestedstudios.inv.utils.ItemBuilder;
 
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.function.Predicate;
-import java.util.stream.IntStream;
 
 /**
  * Lightweight and easy-to-use inventory API for Bukkit plugins.
  * This class serves as the base for creating custom inventories with additional functionality.
+ * <p>
+ * A menu registers its Bukkit inventory in an identity-keyed registry when it is opened, so the
+ * listener can find the menu of an inventory with {@link #of(Inventory)} without calling
+ * {@link Inventory#getHolder()}. The inventory is unregistered when its last viewer closes it, or by
+ * {@link #discard()}. Menus must be opened with {@link #open(Player)}, and a menu which is never
+ * opened is not kept by the registry.
  */
 public class InfestedInv {
 
-    private final Map<Integer, Consumer<InventoryClickEvent>> itemHandlers = new HashMap<>();
+    private static final Map<Inventory, InfestedInv> REGISTRY = Collections.synchronizedMap(new IdentityHashMap<>());
+
     private final List<Consumer<InventoryOpenEvent>> openHandlers = new ArrayList<>();
     private final List<Consumer<InventoryCloseEvent>> closeHandlers = new ArrayList<>();
-    private final List<Consumer<InventoryClickEvent>> clickHandlers = new ArrayList<>();
+    private final ClickPipeline clickPipeline = new ClickPipeline();
+    // Inventories of this menu currently in the registry, usually zero or one
+    private final List<Inventory> registeredInventories = new ArrayList<>(1);
 
     private final Inventory inventory;
+    private final SlotHandlerTable itemHandlers;
+    private final SlotGeometry geometry;
 
     private Predicate<Player> closeFilter;
-    private int updateTaskId = -1;
+    private ClickLimit clickLimit;
+    private MenuTicker.Task updateTask;
+    private String metricsId;
+    private int generation;
+    private MenuStats stats;
 
     /**
      * Create a new InfestedInv with a custom size.
@@ -79,6 +100,18 @@ public class InfestedInv {
     public InfestedInv(Inventory inventory) {
         Objects.requireNonNull(inventory, "inventory");
         this.inventory = inventory;
+        this.itemHandlers = new SlotHandlerTable(inventory.getSize());
+        this.geometry = SlotGeometry.of(inventory.getType(), inventory.getSize());
+    }
+
+    /**
+     * Get the InfestedInv owning a Bukkit inventory.
+     *
+     * @param inventory The Bukkit inventory.
+     * @return The owning InfestedInv, or null if the inventory is not a registered menu.
+     */
+    public static InfestedInv of(Inventory inventory) {
+        return inventory != null ? REGISTRY.get(inventory) : null;
     }
 
     /**
@@ -154,7 +187,7 @@ public class InfestedInv {
      * @param handler The click handler for the item.
      */
     public void setItem(int slot, ItemStack item, Consumer<InventoryClickEvent> handler) {
-        this.inventory.setItem(slot, item);
+        updateSlot(slot, item);
         setItemHandler(slot, handler);
     }
 
@@ -168,6 +201,16 @@ public class InfestedInv {
         setItem(slot, builder.build(), builder.getClickHandler());
     }
 
+    /**
+     * Set a frozen item and its click handler in a specific slot.
+     *
+     * @param slot The slot to set the item in.
+     * @param item The frozen item to set.
+     */
+    public void setItem(int slot, FrozenItem item) {
+        setItem(slot, item.getItem(), item.getClickHandler());
+    }
+
     /**
      * Set an item in a range of slots.
      *
@@ -189,8 +232,9 @@ public class InfestedInv {
      */
     public void setItems(int slotFrom, int slotTo, ItemStack item, Consumer<InventoryClickEvent> handler) {
         for (int i = slotFrom; i <= slotTo; i++) {
-            setItem(i, item, handler);
+            updateSlot(i, item);
         }
+        setItemHandlers(slotFrom, slotTo, handler);
     }
 
     /**
@@ -212,8 +256,9 @@ public class InfestedInv {
      */
     public void setItems(int[] slots, ItemStack item, Consumer<InventoryClickEvent> handler) {
         for (int slot : slots) {
-            setItem(slot, item, handler);
+            updateSlot(slot, item);
         }
+        setItemHandlers(slots, handler);
     }
 
     /**
@@ -222,7 +267,7 @@ public class InfestedInv {
      * @param slot The slot to remove the item from.
      */
     public void removeItem(int slot) {
-        this.inventory.clear(slot);
+        updateSlot(slot, null);
         this.itemHandlers.remove(slot);
     }
 
@@ -237,6 +282,27 @@ public class InfestedInv {
         }
     }
 
+    /**
+     * Start a batch of slot writes and handler changes, sent to the inventory
+     * as a single update when the batch is committed.
+     *
+     * @return A new batch for this inventory.
+     */
+    public InventoryBatch batch() {
+        return new InventoryBatch(this);
+    }
+
+    /**
+     * Run a batch of slot writes and handler changes, then commit it.
+     *
+     * @param changes The changes to apply to the batch.
+     */
+    public void batch(Consumer<InventoryBatch> changes) {
+        InventoryBatch batch = batch();
+        changes.accept(batch);
+        batch.commit();
+    }
+
     /**
      * Set a close filter to prevent players from closing the inventory.
      *
@@ -246,6 +312,25 @@ public class InfestedInv {
         this.closeFilter = closeFilter;
     }
 
+    /**
+     * Set the click rate limit of this inventory. Clicks over the limit are cancelled
+     * before any click handler runs.
+     *
+     * @param clickLimit The click limit, or null to disable click limiting.
+     */
+    public void setClickLimit(ClickLimit clickLimit) {
+        this.clickLimit = clickLimit;
+    }
+
+    /**
+     * Get the click rate limit of this inventory.
+     *
+     * @return The click limit, or null if clicks are not limited.
+     */
+    public ClickLimit getClickLimit() {
+        return this.clickLimit;
+    }
+
     /**
      * Add a handler for inventory open events.
      *
@@ -265,12 +350,41 @@ public class InfestedInv {
     }
 
     /**
-     * Add a handler for inventory click events.
+     * Add a handler for inventory click events, as a click stage of priority 0 matching every click.
      *
      * @param clickHandler The handler to add.
      */
     public void addClickHandler(Consumer<InventoryClickEvent> clickHandler) {
-        this.clickHandlers.add(clickHandler);
+        Objects.requireNonNull(clickHandler, "clickHandler");
+        addClickStage(0, ClickFilter.ALL, e -> {
+            clickHandler.accept(e);
+            return ClickStage.Result.CONTINUE;
+        });
+    }
+
+    /**
+     * Add a stage to the click pipeline. Stages run after {@link #onClick(InventoryClickEvent)}
+     * and before the slot handler, by descending priority then in the order they were added.
+     * A stage returning {@link ClickStage.Result#STOP} skips the next stages and the slot handler.
+     *
+     * @param priority The priority of the stage, higher priorities run first.
+     * @param filter   The clicks handled by the stage.
+     * @param stage    The stage to add.
+     */
+    public void addClickStage(int priority, ClickFilter filter, ClickStage stage) {
+        Objects.requireNonNull(filter, "filter");
+        Objects.requireNonNull(stage, "stage");
+        this.clickPipeline.add(priority, filter, stage);
+    }
+
+    /**
+     * Remove a stage from the click pipeline.
+     *
+     * @param stage The stage to remove.
+     * @return true if the stage was removed.
+     */
+    public boolean removeClickStage(ClickStage stage) {
+        return this.clickPipeline.remove(stage);
     }
 
     /**
@@ -279,18 +393,104 @@ public class InfestedInv {
      * @param player The player to open the inventory for.
      */
     public void open(Player player) {
+        registerInventory(this.inventory);
         player.openInventory(this.inventory);
     }
 
+    /**
+     * Discard this menu: stop its update task and remove its inventories from the registry.
+     * The menu will not receive any event anymore until it is opened again.
+     */
+    public void discard() {
+        stopUpdating();
+        synchronized (this.registeredInventories) {
+            for (Inventory registered : this.registeredInventories) {
+                REGISTRY.remove(registered, this);
+            }
+            this.registeredInventories.clear();
+        }
+    }
+
+    /**
+     * Check if this menu was given by a {@link MenuPool}. Pooled menus go back to their pool
+     * when closed, so they must not be kept to be opened again later.
+     *
+     * @return true if this menu is pooled.
+     */
+    public boolean isPooled() {
+        return false;
+    }
+
+    /**
+     * Reset this menu to the state of a new menu, keeping its Bukkit inventory and handler table:
+     * the content, the slot handlers and the event handlers are cleared, the update task is stopped
+     * and the close filter, click limit and metrics id are removed.
+     * The generation of the menu is increased, so pending asynchronous follow-ups are skipped.
+     */
+    protected void reset() {
+        this.generation++;
+        stopUpdating();
+        updateContents(new ItemStack[this.inventory.getSize()]);
+        this.itemHandlers.clear();
+        this.openHandlers.clear();
+        this.closeHandlers.clear();
+        this.clickPipeline.clear();
+        this.closeFilter = null;
+        this.clickLimit = null;
+        setMetricsId(null);
+    }
+
+    /**
+     * Get the generation of this menu, increased every time it is reset for a new use.
+     *
+     * @return The generation.
+     */
+    int getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Register a Bukkit inventory as belonging to this menu.
+     *
+     * @param inventory The inventory to register.
+     */
+    protected final void registerInventory(Inventory inventory) {
+        synchronized (this.registeredInventories) {
+            if (REGISTRY.put(inventory, this) != this) {
+                this.registeredInventories.add(inventory);
+            }
+        }
+    }
+
+    /**
+     * Remove a Bukkit inventory of this menu from the registry.
+     *
+     * @param inventory The inventory to unregister.
+     */
+    protected final void unregisterInventory(Inventory inventory) {
+        synchronized (this.registeredInventories) {
+            if (REGISTRY.remove(inventory, this)) {
+                this.registeredInventories.removeIf(registered -> registered == inventory);
+            }
+        }
+    }
+
+    /**
+     * Get the precomputed slot geometry of the inventory.
+     *
+     * @return The shared geometry of this inventory shape.
+     */
+    public SlotGeometry getGeometry() {
+        return this.geometry;
+    }
+
     /**
      * Get the border slots of the inventory.
      *
      * @return The border slots.
      */
     public int[] getBorders() {
-        int size = this.inventory.getSize();
-        return IntStream.range(0, size).filter(i -> size < 27 || i < 9
-                || i % 9 == 0 || (i - 8) % 9 == 0 || i > size - 9).toArray();
+        return this.geometry.borders().toArray();
     }
 
     /**
@@ -299,10 +499,31 @@ public class InfestedInv {
      * @return The corner slots.
      */
     public int[] getCorners() {
-        int size = this.inventory.getSize();
-        return IntStream.range(0, size).filter(i -> i < 2 || (i > 6 && i < 10)
-                || i == 17 || i == size - 18
-                || (i > size - 11 && i < size - 7) || i > size - 3).toArray();
+        return this.geometry.corners().toArray();
+    }
+
+    /**
+     * Fill a region of the inventory with a specified item, keeping the click handlers of the region.
+     *
+     * @param region The slots to fill.
+     * @param item   The item to fill the region with.
+     */
+    public void fill(SlotRegion region, ItemStack item) {
+        for (int slot : region.slots()) {
+            updateSlot(slot, item);
+        }
+    }
+
+    /**
+     * Set an item with a click handler in every slot of a region.
+     *
+     * @param region  The slots to set the item in.
+     * @param item    The item to set.
+     * @param handler The click handler for the item.
+     */
+    public void setItems(SlotRegion region, ItemStack item, Consumer<InventoryClickEvent> handler) {
+        fill(region, item);
+        setItemHandlers(region, handler);
     }
 
     /**
@@ -312,10 +533,7 @@ public class InfestedInv {
      * @param item The item to fill the row with.
      */
     public void fillRow(int row, ItemStack item) {
-        int start = row * 9;
-        for (int i = start; i < start + 9; i++) {
-            this.inventory.setItem(i, item);
-        }
+        fill(this.geometry.row(row), item);
     }
 
     /**
@@ -325,9 +543,7 @@ public class InfestedInv {
      * @param item The item to fill the column with.
      */
     public void fillColumn(int col, ItemStack item) {
-        for (int i = col; i < this.inventory.getSize(); i += 9) {
-            this.inventory.setItem(i, item);
-        }
+        fill(this.geometry.column(col), item);
     }
 
     /**
@@ -336,9 +552,7 @@ public class InfestedInv {
      * @param item The item to fill the borders with.
      */
     public void fillBorders(ItemStack item) {
-        for (int slot : getBorders()) {
-            this.inventory.setItem(slot, item);
-        }
+        fill(this.geometry.borders(), item);
     }
 
     /**
@@ -347,9 +561,7 @@ public class InfestedInv {
      * @param item The item to fill the corners with.
      */
     public void fillCorners(ItemStack item) {
-        for (int slot : getCorners()) {
-            this.inventory.setItem(slot, item);
-        }
+        fill(this.geometry.corners(), item);
     }
 
     /**
@@ -371,35 +583,132 @@ public class InfestedInv {
     public boolean handleClose(InventoryCloseEvent e) {
         onClose(e);
         this.closeHandlers.forEach(c -> c.accept(e));
-        return this.closeFilter != null && this.closeFilter.test((Player) e.getPlayer());
+        boolean reopen = this.closeFilter != null && this.closeFilter.test((Player) e.getPlayer());
+
+        // The closing player is still counted as a viewer at this point
+        if (!reopen && e.getInventory().getViewers().size() <= 1) {
+            unregisterInventory(e.getInventory());
+        }
+        return reopen;
     }
 
     /**
-     * Handle inventory click events.
+     * Handle inventory click events: {@link #onClick(InventoryClickEvent)}, then the click stages,
+     * then the slot handler unless a stage stopped the click.
      *
      * @param e The inventory click event.
      */
     public void handleClick(InventoryClickEvent e) {
         onClick(e);
-        this.clickHandlers.forEach(c -> c.accept(e));
-        Consumer<InventoryClickEvent> clickConsumer = this.itemHandlers.get(e.getRawSlot());
+        if (!this.clickPipeline.handle(e)) {
+            return;
+        }
+        Consumer<InventoryClickEvent> clickConsumer = getItemHandler(e);
         if (clickConsumer != null) {
             clickConsumer.accept(e);
         }
     }
 
+    /**
+     * Write an item in a slot of the Bukkit inventory.
+     * Every slot write of this class goes through this method.
+     *
+     * @param slot The slot to update.
+     * @param item The new item, or null to clear the slot.
+     */
+    protected void updateSlot(int slot, ItemStack item) {
+        this.inventory.setItem(slot, item);
+    }
+
+    /**
+     * Write the whole content of the Bukkit inventory at once.
+     * Every bulk write of this class goes through this method.
+     *
+     * @param contents The new content of every slot.
+     */
+    protected void updateContents(ItemStack[] contents) {
+        this.inventory.setContents(contents);
+    }
+
+    /**
+     * Apply a compiled layout to this inventory, with a single bulk inventory update.
+     * Slots not defined by the layout are left untouched. A layout larger than this inventory
+     * can be applied as long as it does not define any slot past the end of the inventory.
+     *
+     * @param layout The layout to apply.
+     * @throws IllegalArgumentException if the layout defines a slot outside of this inventory.
+     */
+    public void applyLayout(CompiledLayout layout) {
+        if (layout.lastSlot() >= this.inventory.getSize()) {
+            throw new IllegalArgumentException("Layout defines slot " + layout.lastSlot()
+                    + " outside of the inventory of size " + this.inventory.getSize());
+        }
+
+        updateContents(layout.merge(this.inventory.getContents()));
+        layout.copyHandlers(this.itemHandlers);
+    }
+
+    /**
+     * Resolve the slot handler to call for a click event.
+     *
+     * @param e The inventory click event.
+     * @return The handler for the clicked slot and click type, or null if there is none.
+     */
+    protected Consumer<InventoryClickEvent> getItemHandler(InventoryClickEvent e) {
+        return this.itemHandlers.get(e.getRawSlot(), e.getClick());
+    }
+
     /**
      * Set the item handler for a specific slot.
      *
      * @param slot    The slot to set the handler for.
-     * @param handler The click handler.
+     * @param handler The click handler, or null to remove it.
      */
-    protected void setItemHandler(int slot, Consumer<InventoryClickEvent> handler) {
-        if (handler != null) {
-            this.itemHandlers.put(slot, handler);
-        } else {
-            this.itemHandlers.remove(slot);
-        }
+    public void setItemHandler(int slot, Consumer<InventoryClickEvent> handler) {
+        this.itemHandlers.set(slot, handler);
+    }
+
+    /**
+     * Set the item handler for a specific slot and click type.
+     * This handler is called instead of the default handler of the slot for this click type.
+     *
+     * @param slot    The slot to set the handler for.
+     * @param type    The click type to handle.
+     * @param handler The click handler, or null to remove it.
+     */
+    public void setItemHandler(int slot, ClickType type, Consumer<InventoryClickEvent> handler) {
+        this.itemHandlers.set(slot, type, handler);
+    }
+
+    /**
+     * Set the item handler for a range of slots.
+     *
+     * @param slotFrom The starting slot.
+     * @param slotTo   The ending slot.
+     * @param handler  The click handler, or null to remove it.
+     */
+    public void setItemHandlers(int slotFrom, int slotTo, Consumer<InventoryClickEvent> handler) {
+        this.itemHandlers.set(slotFrom, slotTo, handler);
+    }
+
+    /**
+     * Set the item handler for every slot of a region.
+     *
+     * @param region  The slots to set the handler for.
+     * @param handler The click handler, or null to remove it.
+     */
+    public void setItemHandlers(SlotRegion region, Consumer<InventoryClickEvent> handler) {
+        this.itemHandlers.set(region.slots(), handler);
+    }
+
+    /**
+     * Set the item handler for multiple slots.
+     *
+     * @param slots   The slots to set the handler for.
+     * @param handler The click handler, or null to remove it.
+     */
+    public void setItemHandlers(int[] slots, Consumer<InventoryClickEvent> handler) {
+        this.itemHandlers.set(slots, handler);
     }
 
     /**
@@ -409,17 +718,104 @@ public class InfestedInv {
      * @param updateFunction The function to update the inventory.
      */
     public void startUpdating(Plugin plugin, Runnable updateFunction) {
+        startUpdating(plugin, 1L, updateFunction);
+    }
+
+    /**
+     * Start updating the inventory content with a custom period.
+     *
+     * @param plugin         The plugin instance.
+     * @param period         The update period, in ticks.
+     * @param updateFunction The function to update the inventory.
+     */
+    public void startUpdating(Plugin plugin, long period, Runnable updateFunction) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("period must be positive: " + period);
+        }
+        Objects.requireNonNull(updateFunction, "updateFunction");
         stopUpdating();
-        this.updateTaskId = Bukkit.getScheduler().runTaskTimer(plugin, updateFunction, 0L, 1L).getTaskId();
+        this.updateTask = InfestedInvManager.getTicker(plugin).schedule(() -> {
+            if (!MenuMetrics.isEnabled()) {
+                updateFunction.run();
+                return;
+            }
+
+            long start = System.nanoTime();
+            try {
+                updateFunction.run();
+            } finally {
+                getStats().recordUpdate(System.nanoTime() - start);
+            }
+        }, period);
+    }
+
+    /**
+     * Start rendering the inventory content with a render function.
+     * The function is called for every slot and only the slots whose item changed since the
+     * last render are written to the inventory. Nothing is rendered while the inventory has no viewers.
+     * <p>
+     * Items written to the inventory by other means are not tracked, and may be kept
+     * until the render function returns a different item for their slot.
+     *
+     * @param plugin         The plugin instance.
+     * @param period         The render period, in ticks.
+     * @param renderFunction The function returning the item of a slot, or null for an empty slot.
+     */
+    public void startRendering(Plugin plugin, long period, IntFunction<ItemStack> renderFunction) {
+        Objects.requireNonNull(renderFunction, "renderFunction");
+        startUpdating(plugin, period, new DiffRenderer(this, renderFunction));
+    }
+
+    /**
+     * Get the id grouping the metrics of this menu with other menus.
+     *
+     * @return The metrics id, the class name of this menu by default.
+     */
+    public String getMetricsId() {
+        return this.metricsId != null ? this.metricsId : getClass().getName();
+    }
+
+    /**
+     * Set the id grouping the metrics of this menu with other menus.
+     *
+     * @param metricsId The metrics id, or null to use the class name of this menu.
+     */
+    public void setMetricsId(String metricsId) {
+        this.metricsId = metricsId;
+        this.stats = null;
+    }
+
+    /**
+     * Get the metrics of this menu, shared by every menu with the same metrics id.
+     * Metrics are only recorded while {@link MenuMetrics#isEnabled()} is true.
+     *
+     * @return The stats of the metrics id of this menu.
+     */
+    public MenuStats getStats() {
+        MenuStats result = this.stats;
+        if (result == null) {
+            result = MenuMetrics.getStats(getMetricsId());
+            this.stats = result;
+        }
+        return result;
+    }
+
+    /**
+     * Check if at least one player is viewing this menu.
+     *
+     * @return true if the menu has viewers.
+     */
+    public boolean hasViewers() {
+        return !this.inventory.getViewers().isEmpty();
     }
 
     /**
      * Stop updating the inventory content.
      */
     public void stopUpdating() {
-        if (this.updateTaskId != -1) {
-            Bukkit.getScheduler().cancelTask(this.updateTaskId);
-            this.updateTaskId = -1;
+        if (this.updateTask != null) {
+            this.updateTask.cancel();
+            this.updateTask = null;
         }
     }
 
@@ -0,0 +1,247 @@
+package org.infestedstudios.inv;
+
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.ItemStack;
+import org.infestedstudios.inv.utils.FrozenItem;
+
+import java.util.function.Consumer;
+
+/**
+ * Staging buffer collecting slot writes and handler changes of an {@link InfestedInv}.
+ * <p>
+ * Nothing is sent to the inventory until {@link #commit()} is called. The commit skips the slots
+ * whose staged item is the current item of the slot, then writes the remaining ones with a single
+ * {@link org.bukkit.inventory.Inventory#setContents(ItemStack[])} call, or one by one when only
+ * a few slots changed.
+ */
+public final class InventoryBatch {
+
+    // Above this number of changed slots, a single bulk update is cheaper than individual updates
+    private static final int BULK_THRESHOLD = 4;
+
+    private final InfestedInv inv;
+    private final int size;
+    private final ItemStack[] items;
+    private final boolean[] itemChanged;
+    private final Consumer<InventoryClickEvent>[] handlers;
+    private final boolean[] handlerChanged;
+
+    private boolean committed;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    InventoryBatch(InfestedInv inv) {
+        this.inv = inv;
+        this.size = inv.getInventory().getSize();
+        this.items = new ItemStack[this.size];
+        this.itemChanged = new boolean[this.size];
+        this.handlers = new Consumer[this.size];
+        this.handlerChanged = new boolean[this.size];
+    }
+
+    /**
+     * Set an item in a specific slot.
+     *
+     * @param slot The slot to set the item in.
+     * @param item The item to set.
+     * @return this batch
+     */
+    public InventoryBatch setItem(int slot, ItemStack item) {
+        return setItem(slot, item, null);
+    }
+
+    /**
+     * Set an item in a specific slot with a click handler.
+     *
+     * @param slot    The slot to set the item in.
+     * @param item    The item to set.
+     * @param handler The click handler for the item.
+     * @return this batch
+     */
+    public InventoryBatch setItem(int slot, ItemStack item, Consumer<InventoryClickEvent> handler) {
+        stageItem(slot, item);
+        return setItemHandler(slot, handler);
+    }
+
+    /**
+     * Set a frozen item and its click handler in a specific slot.
+     *
+     * @param slot The slot to set the item in.
+     * @param item The frozen item to set.
+     * @return this batch
+     */
+    public InventoryBatch setItem(int slot, FrozenItem item) {
+        return setItem(slot, item.getItem(), item.getClickHandler());
+    }
+
+    /**
+     * Set an item in a range of slots with a click handler.
+     *
+     * @param slotFrom The starting slot.
+     * @param slotTo   The ending slot.
+     * @param item     The item to set.
+     * @param handler  The click handler for the item.
+     * @return this batch
+     */
+    public InventoryBatch setItems(int slotFrom, int slotTo, ItemStack item, Consumer<InventoryClickEvent> handler) {
+        for (int slot = slotFrom; slot <= slotTo; slot++) {
+            setItem(slot, item, handler);
+        }
+        return this;
+    }
+
+    /**
+     * Set an item in multiple slots with a click handler.
+     *
+     * @param slots   The slots to set the item in.
+     * @param item    The item to set.
+     * @param handler The click handler for the item.
+     * @return this batch
+     */
+    public InventoryBatch setItems(int[] slots, ItemStack item, Consumer<InventoryClickEvent> handler) {
+        for (int slot : slots) {
+            setItem(slot, item, handler);
+        }
+        return this;
+    }
+
+    /**
+     * Remove an item and its handler from a specific slot.
+     *
+     * @param slot The slot to remove the item from.
+     * @return this batch
+     */
+    public InventoryBatch removeItem(int slot) {
+        return setItem(slot, null, null);
+    }
+
+    /**
+     * Set the click handler of a slot, without changing its item.
+     *
+     * @param slot    The slot to set the handler for.
+     * @param handler The click handler, or null to remove it.
+     * @return this batch
+     */
+    public InventoryBatch setItemHandler(int slot, Consumer<InventoryClickEvent> handler) {
+        checkSlot(slot);
+        this.handlers[slot] = handler;
+        this.handlerChanged[slot] = true;
+        return this;
+    }
+
+    /**
+     * Fill a region with an item, keeping the handlers of the region.
+     *
+     * @param region The slots to fill.
+     * @param item   The item to fill the region with.
+     * @return this batch
+     */
+    public InventoryBatch fill(SlotRegion region, ItemStack item) {
+        for (int slot : region.slots()) {
+            stageItem(slot, item);
+        }
+        return this;
+    }
+
+    /**
+     * Fill an entire row with an item, keeping the handlers of the row.
+     *
+     * @param row  The row number to fill (starting from 0).
+     * @param item The item to fill the row with.
+     * @return this batch
+     */
+    public InventoryBatch fillRow(int row, ItemStack item) {
+        return fill(this.inv.getGeometry().row(row), item);
+    }
+
+    /**
+     * Fill an entire column with an item, keeping the handlers of the column.
+     *
+     * @param col  The column number to fill (starting from 0).
+     * @param item The item to fill the column with.
+     * @return this batch
+     */
+    public InventoryBatch fillColumn(int col, ItemStack item) {
+        return fill(this.inv.getGeometry().column(col), item);
+    }
+
+    /**
+     * Fill the borders of the inventory with an item, keeping the handlers of the borders.
+     *
+     * @param item The item to fill the borders with.
+     * @return this batch
+     */
+    public InventoryBatch fillBorders(ItemStack item) {
+        return fill(this.inv.getGeometry().borders(), item);
+    }
+
+    /**
+     * Fill the corners of the inventory with an item, keeping the handlers of the corners.
+     *
+     * @param item The item to fill the corners with.
+     * @return this batch
+     */
+    public InventoryBatch fillCorners(ItemStack item) {
+        return fill(this.inv.getGeometry().corners(), item);
+    }
+
+    /**
+     * Write every staged change to the inventory. A batch can only be committed once.
+     *
+     * @throws IllegalStateException if this batch was already committed
+     */
+    public void commit() {
+        if (this.committed) {
+            throw new IllegalStateException("Batch already committed");
+        }
+        this.committed = true;
+
+        ItemStack[] contents = this.inv.getInventory().getContents();
+        int changed = 0;
+        for (int slot = 0; slot < this.size; slot++) {
+            // Only compared by identity: hashing or comparing the items of a live inventory clones
+            // their meta, and a fingerprint collision would drop a requested write
+            if (this.itemChanged[slot] && contents[slot] == this.items[slot]) {
+                this.itemChanged[slot] = false;
+            }
+            if (this.itemChanged[slot]) {
+                changed++;
+            }
+        }
+
+        if (changed > BULK_THRESHOLD) {
+            for (int slot = 0; slot < this.size; slot++) {
+                if (this.itemChanged[slot]) {
+                    contents[slot] = this.items[slot];
+                }
+            }
+            this.inv.updateContents(contents);
+        } else if (changed > 0) {
+            for (int slot = 0; slot < this.size; slot++) {
+                if (this.itemChanged[slot]) {
+                    this.inv.updateSlot(slot, this.items[slot]);
+                }
+            }
+        }
+
+        for (int slot = 0; slot < this.size; slot++) {
+            if (this.handlerChanged[slot]) {
+                this.inv.setItemHandler(slot, this.handlers[slot]);
+            }
+        }
+    }
+
+    private void stageItem(int slot, ItemStack item) {
+        checkSlot(slot);
+        this.items[slot] = item;
+        this.itemChanged[slot] = true;
+    }
+
+    private void checkSlot(int slot) {
+        if (this.committed) {
+            throw new IllegalStateException("Batch already committed");
+        }
+        if (slot < 0 || slot >= this.size) {
+            throw new IndexOutOfBoundsException("Invalid slot " + slot + " for size " + this.size);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.infestedstudios.inv;
 
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.ItemStack;
+import org.infestedstudios.inv.metrics.MenuMetrics;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -10,12 +11,20 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.function.Consumer;
 
+/**
+ * Inventory layout described with character masks, where each character is bound to an item.
+ * <p>
+ * The scheme is compiled once into a {@link CompiledLayout}, cached until the scheme is modified,
+ * so applying the same scheme to many menus only costs a bulk inventory update.
+ */
 public class InventoryScheme {
 
     private final List<String> masks = new ArrayList<>();
     private final Map<Character, ItemStack> items = new HashMap<>();
     private final Map<Character, Consumer<InventoryClickEvent>> handlers = new HashMap<>();
 
+    private volatile CompiledLayout compiled;
+
     /**
      * Add a mask to this scheme including all sort of characters.
      * For example: "110101011"
@@ -25,7 +34,8 @@ public class InventoryScheme {
      */
     public InventoryScheme mask(String mask) {
         Objects.requireNonNull(mask);
-        this.masks.add(mask.length() > 9 ? mask.substring(0, 10) : mask);
+        this.masks.add(mask.length() > 9 ? mask.substring(0, 9) : mask);
+        this.compiled = null;
 
         return this;
     }
@@ -58,6 +68,7 @@ public class InventoryScheme {
         if (handler != null) {
             this.handlers.put(character, handler);
         }
+        this.compiled = null;
         return this;
     }
 
@@ -81,27 +92,54 @@ public class InventoryScheme {
     public InventoryScheme unbindItem(char character) {
         this.items.remove(character);
         this.handlers.remove(character);
+        this.compiled = null;
         return this;
     }
 
     /**
-     * Apply the current inventory scheme to the FastInv instance.
+     * Compile this scheme into a layout. The layout is cached until this scheme is modified.
      *
-     * @param inv the FastInv instance to apply this scheme to
+     * @return the compiled layout of this scheme
      */
-    public void apply(InfestedInv inv) {
-        for (int line = 0; line < this.masks.size(); line++) {
-            String mask = this.masks.get(line);
+    public CompiledLayout compile() {
+        CompiledLayout layout = this.compiled;
+
+        if (layout == null) {
+            CompiledLayout.Builder builder = new CompiledLayout.Builder(9 * this.masks.size());
+
+            for (int line = 0; line < this.masks.size(); line++) {
+                String mask = this.masks.get(line);
 
-            for (int slot = 0; slot < mask.length(); slot++) {
-                char c = mask.charAt(slot);
-                ItemStack item = this.items.get(c);
-                Consumer<InventoryClickEvent> handler = this.handlers.get(c);
+                for (int slot = 0; slot < mask.length(); slot++) {
+                    char c = mask.charAt(slot);
+                    ItemStack item = this.items.get(c);
 
-                if (item != null) {
-                    inv.setItem(9 * line + slot, item, handler);
+                    if (item != null) {
+                        builder.set(9 * line + slot, item, this.handlers.get(c));
+                    }
                 }
             }
+            this.compiled = layout = builder.build();
+        }
+        return layout;
+    }
+
+    /**
+     * Apply the current inventory scheme to the InfestedInv instance.
+     *
+     * @param inv the InfestedInv instance to apply this scheme to
+     */
+    public void apply(InfestedInv inv) {
+        if (!MenuMetrics.isEnabled()) {
+            inv.applyLayout(compile());
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            inv.applyLayout(compile());
+        } finally {
+            MenuMetrics.getLayoutApplyLatency().record(System.nanoTime() - start);
         }
     }
 }
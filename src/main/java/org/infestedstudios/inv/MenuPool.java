@@ -0,0 +1,222 @@
+package org.infestedstudios.inv;
+
+import org.bukkit.event.inventory.InventoryType;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Pool of reusable menus, for short-lived menus opened many times like confirmation dialogs.
+ * <p>
+ * Menus are pooled by inventory type, size and title. A menu given by {@link #acquire(int, String)}
+ * is reset to the state of a new menu but keeps its Bukkit inventory and handler table, and goes
+ * back to the pool when its last viewer closes it. A released menu must not be used anymore.
+ * <p>
+ * The pool keeps at most {@code maxIdlePerKey} idle menus per shape and {@code maxIdle} idle menus
+ * in total. When the total is exceeded, idle menus of the least recently used shape are discarded first.
+ */
+public final class MenuPool {
+
+    private final int maxIdlePerKey;
+    private final int maxIdle;
+    private final Map<Key, ArrayDeque<PooledInfestedInv>> idle = new LinkedHashMap<>(16, 0.75F, true);
+
+    private int idleCount;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Create a new pool.
+     *
+     * @param maxIdlePerKey The maximum number of idle menus of each type, size and title.
+     * @param maxIdle       The maximum number of idle menus in total.
+     */
+    public MenuPool(int maxIdlePerKey, int maxIdle) {
+        if (maxIdlePerKey < 0 || maxIdle < 0) {
+            throw new IllegalArgumentException("Pool limits must not be negative");
+        }
+        this.maxIdlePerKey = maxIdlePerKey;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Get a chest menu from the pool, or create it if there is no idle menu of this shape.
+     *
+     * @param size  The size of the inventory.
+     * @param title The title of the inventory.
+     * @return A reset menu.
+     */
+    public InfestedInv acquire(int size, String title) {
+        return acquire(new Key(InventoryType.CHEST, size, title));
+    }
+
+    /**
+     * Get a menu of a custom type from the pool, or create it if there is no idle menu of this shape.
+     *
+     * @param type  The type of the inventory.
+     * @param title The title of the inventory.
+     * @return A reset menu.
+     */
+    public InfestedInv acquire(InventoryType type, String title) {
+        Objects.requireNonNull(type, "type");
+        return acquire(new Key(type, type.getDefaultSize(), title));
+    }
+
+    /**
+     * Discard every idle menu.
+     */
+    public synchronized void clear() {
+        this.idle.values().forEach(menus -> menus.forEach(PooledInfestedInv::evict));
+        this.idle.clear();
+        this.idleCount = 0;
+    }
+
+    /**
+     * Get the number of idle menus in the pool.
+     *
+     * @return The idle menu count.
+     */
+    public synchronized int getIdleCount() {
+        return this.idleCount;
+    }
+
+    /**
+     * Get the number of menus given from the idle menus of the pool.
+     *
+     * @return The hit count.
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Get the number of menus created because there was no idle menu of their shape.
+     *
+     * @return The miss count.
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * Get the number of idle menus discarded to respect the pool limits.
+     *
+     * @return The eviction count.
+     */
+    public synchronized long getEvictions() {
+        return this.evictions;
+    }
+
+    private InfestedInv acquire(Key key) {
+        PooledInfestedInv menu = null;
+
+        synchronized (this) {
+            ArrayDeque<PooledInfestedInv> menus = this.idle.get(key);
+            if (menus != null && !menus.isEmpty()) {
+                menu = menus.pop();
+                if (menus.isEmpty()) {
+                    this.idle.remove(key);
+                }
+                this.idleCount--;
+                this.hits++;
+            } else {
+                this.misses++;
+            }
+        }
+
+        if (menu == null) {
+            return new PooledInfestedInv(this, key);
+        }
+        menu.reuse();
+        return menu;
+    }
+
+    synchronized void release(PooledInfestedInv menu) {
+        ArrayDeque<PooledInfestedInv> menus = this.idle.get(menu.key);
+        if ((menus != null ? menus.size() : 0) >= this.maxIdlePerKey) {
+            evict(menu);
+            return;
+        }
+        if (menus == null) {
+            menus = new ArrayDeque<>();
+            this.idle.put(menu.key, menus);
+        }
+
+        // Most recently released menus are reused first, the oldest ones are evicted first
+        menus.push(menu);
+        this.idleCount++;
+
+        Iterator<ArrayDeque<PooledInfestedInv>> it = this.idle.values().iterator();
+        while (this.idleCount > this.maxIdle && it.hasNext()) {
+            ArrayDeque<PooledInfestedInv> eldest = it.next();
+            while (this.idleCount > this.maxIdle && !eldest.isEmpty()) {
+                evict(eldest.removeLast());
+                this.idleCount--;
+            }
+            if (eldest.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    synchronized void remove(PooledInfestedInv menu) {
+        ArrayDeque<PooledInfestedInv> menus = this.idle.get(menu.key);
+        if (menus != null && menus.removeFirstOccurrence(menu)) {
+            this.idleCount--;
+            if (menus.isEmpty()) {
+                this.idle.remove(menu.key);
+            }
+        }
+    }
+
+    private void evict(PooledInfestedInv menu) {
+        menu.evict();
+        this.evictions++;
+    }
+
+    static final class Key {
+
+        private final InventoryType type;
+        private final int size;
+        private final String title;
+
+        Key(InventoryType type, int size, String title) {
+            this.type = type;
+            this.size = size;
+            this.title = title;
+        }
+
+        InventoryType getType() {
+            return this.type;
+        }
+
+        int getSize() {
+            return this.size;
+        }
+
+        String getTitle() {
+            return this.title;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return this.size == key.size && this.type == key.type && Objects.equals(this.title, key.title);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.type, this.size, this.title);
+        }
+    }
+}
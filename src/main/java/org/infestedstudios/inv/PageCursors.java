@@ -0,0 +1,98 @@
+package org.infestedstudios.inv;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Page position of each viewer of a paginated inventory.
+ * Stored in small parallel arrays, since a menu rarely has more than a few viewers at once.
+ */
+final class PageCursors {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private UUID[] viewers = new UUID[INITIAL_CAPACITY];
+    private int[] pages = new int[INITIAL_CAPACITY];
+    private int count;
+
+    /**
+     * Get the page of a viewer.
+     *
+     * @param viewer The viewer unique id.
+     * @return The page of the viewer, or -1 if the viewer has no page.
+     */
+    int get(UUID viewer) {
+        int index = indexOf(viewer);
+        return index >= 0 ? this.pages[index] : -1;
+    }
+
+    /**
+     * Set the page of a viewer.
+     *
+     * @param viewer The viewer unique id.
+     * @param page   The page of the viewer.
+     */
+    void set(UUID viewer, int page) {
+        int index = indexOf(viewer);
+
+        if (index < 0) {
+            if (this.count == this.viewers.length) {
+                this.viewers = Arrays.copyOf(this.viewers, this.count * 2);
+                this.pages = Arrays.copyOf(this.pages, this.count * 2);
+            }
+            index = this.count++;
+            this.viewers[index] = viewer;
+        }
+        this.pages[index] = page;
+    }
+
+    /**
+     * Remove the page of a viewer.
+     *
+     * @param viewer The viewer unique id.
+     */
+    void remove(UUID viewer) {
+        int index = indexOf(viewer);
+
+        if (index >= 0) {
+            int last = --this.count;
+            this.viewers[index] = this.viewers[last];
+            this.pages[index] = this.pages[last];
+            this.viewers[last] = null;
+        }
+    }
+
+    /**
+     * Remove a page: viewers of this page lose their cursor and viewers of the
+     * following pages are moved back by one page.
+     *
+     * @param page The removed page.
+     */
+    void removePage(int page) {
+        for (int i = this.count - 1; i >= 0; i--) {
+            if (this.pages[i] == page) {
+                remove(this.viewers[i]);
+            } else if (this.pages[i] > page) {
+                this.pages[i]--;
+            }
+        }
+    }
+
+    /**
+     * Get the number of viewers with a page.
+     *
+     * @return The number of viewers.
+     */
+    int size() {
+        return this.count;
+    }
+
+    private int indexOf(UUID viewer) {
+        for (int i = 0; i < this.count; i++) {
+            if (this.viewers[i].equals(viewer)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,45 @@
+package org.infestedstudios.inv;
+
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.function.Consumer;
+
+/**
+ * Data source of a {@link VirtualPaginatedInfestedInv}.
+ * Items are only requested for the page being displayed.
+ */
+public interface PageSource {
+
+    /**
+     * Get the total number of items of this source.
+     *
+     * @return The number of items.
+     */
+    int size();
+
+    /**
+     * Render the items between two indices.
+     *
+     * @param fromIndex The index of the first item to render (inclusive).
+     * @param toIndex   The index of the last item to render (exclusive).
+     * @param sink      The sink receiving the rendered items.
+     */
+    void render(int fromIndex, int toIndex, Sink sink);
+
+    /**
+     * Receiver of the items rendered by a {@link PageSource}.
+     */
+    @FunctionalInterface
+    interface Sink {
+
+        /**
+         * Accept a rendered item.
+         *
+         * @param index   The index of the item in the source.
+         * @param item    The item to display.
+         * @param handler The click handler of the item, may be null.
+         */
+        void accept(int index, ItemStack item, Consumer<InventoryClickEvent> handler);
+    }
+}
@@ -1,9 +1,10 @@
 package org.infestedstudios.inv;
 
 import org.bukkit.Bukkit;
-import org.bukkit.Material;
+import org.bukkit.entity.HumanEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.infestedstudios.inv.utils.ItemBuilder;
@@ -14,15 +15,25 @@ import java.util.function.Consumer;
 
 /**
  * PaginatedInfestedInv provides an implementation of InfestedInv with pagination support.
+ * <p>
+ * Each viewer has their own page cursor, so a single instance can be browsed by many players at once.
+ * Navigation items are identified by their slot, and the click handlers of each page are stored
+ * in a dedicated {@link SlotHandlerTable} which is freed with its page. A page inventory is only
+ * registered while it is viewed: it is registered when opened and unregistered when its last viewer closes it.
  */
 public class PaginatedInfestedInv extends InfestedInv {
     private final List<Inventory> pages = new ArrayList<>();
-    private int currentPage = 0;
+    private final List<SlotHandlerTable> pageHandlers = new ArrayList<>();
+    private final PageCursors cursors = new PageCursors();
+    private final String title;
     private final ItemStack nextPageItem;
     private final ItemStack prevPageItem;
+    private final int prevPageSlot;
+    private final int nextPageSlot;
 
     /**
-     * Constructor for creating a paginated inventory.
+     * Constructor for creating a paginated inventory. The navigation items are placed
+     * in the first and last slots of the last row.
      *
      * @param size         The size of each inventory page.
      * @param title        The title of each inventory page.
@@ -30,9 +41,30 @@ public class PaginatedInfestedInv extends InfestedInv {
      * @param prevPageItem The item used for navigating to the previous page.
      */
     public PaginatedInfestedInv(int size, String title, ItemStack nextPageItem, ItemStack prevPageItem) {
+        this(size, title, nextPageItem, prevPageItem, size - 9, size - 1);
+    }
+
+    /**
+     * Constructor for creating a paginated inventory with custom navigation slots.
+     *
+     * @param size         The size of each inventory page.
+     * @param title        The title of each inventory page.
+     * @param nextPageItem The item used for navigating to the next page.
+     * @param prevPageItem The item used for navigating to the previous page.
+     * @param prevPageSlot The slot of the previous page item.
+     * @param nextPageSlot The slot of the next page item.
+     */
+    public PaginatedInfestedInv(int size, String title, ItemStack nextPageItem, ItemStack prevPageItem,
+                                int prevPageSlot, int nextPageSlot) {
         super(size, title);
+        if (prevPageSlot == nextPageSlot) {
+            throw new IllegalArgumentException("Navigation slots must be different");
+        }
+        this.title = title;
         this.nextPageItem = nextPageItem;
         this.prevPageItem = prevPageItem;
+        this.prevPageSlot = prevPageSlot;
+        this.nextPageSlot = nextPageSlot;
         addPage();
     }
 
@@ -40,7 +72,57 @@ public class PaginatedInfestedInv extends InfestedInv {
      * Adds a new empty page to the paginated inventory.
      */
     private void addPage() {
-        pages.add(Bukkit.createInventory(null, getInventory().getSize(), getInventory().getType().name()));
+        Inventory page = this.title != null
+                ? Bukkit.createInventory(null, getInventory().getSize(), this.title)
+                : Bukkit.createInventory(null, getInventory().getSize());
+        pages.add(page);
+        pageHandlers.add(new SlotHandlerTable(getInventory().getSize()));
+
+        int index = pages.size() - 1;
+        updateNavigation(index);
+        if (index > 0) {
+            updateNavigation(index - 1);
+        }
+    }
+
+    /**
+     * Removes a page and frees its inventory and click handlers.
+     * Players viewing this page have their inventory closed.
+     *
+     * @param page The page number to remove.
+     */
+    public void removePage(int page) {
+        if (page < 0 || page >= pages.size()) {
+            return;
+        }
+
+        Inventory inventory = pages.get(page);
+        new ArrayList<>(inventory.getViewers()).forEach(HumanEntity::closeInventory);
+
+        unregisterInventory(inventory);
+        pages.remove(page);
+        pageHandlers.remove(page);
+        cursors.removePage(page);
+
+        if (pages.isEmpty()) {
+            addPage();
+            return;
+        }
+        if (page > 0) {
+            updateNavigation(page - 1);
+        }
+        if (page < pages.size()) {
+            updateNavigation(page);
+        }
+    }
+
+    /**
+     * Gets the number of pages.
+     *
+     * @return The number of pages.
+     */
+    public int getPageCount() {
+        return pages.size();
     }
 
     /**
@@ -53,29 +135,42 @@ public class PaginatedInfestedInv extends InfestedInv {
         if (page < 0 || page >= pages.size()) {
             return;
         }
-        this.currentPage = page;
+        cursors.set(player.getUniqueId(), page);
+        registerInventory(pages.get(page));
         player.openInventory(pages.get(page));
     }
 
+    @Override
+    public void open(Player player) {
+        openPage(player, 0);
+    }
+
     /**
-     * Adds an item to the current page.
+     * Gets the page currently viewed by a player.
+     *
+     * @param player The player.
+     * @return The page of the player, or -1 if the player is not viewing this inventory.
+     */
+    public int getPage(HumanEntity player) {
+        return cursors.get(player.getUniqueId());
+    }
+
+    /**
+     * Adds an item to the last page, adding a new page when it is full.
      *
      * @param item    The item to add.
      * @param handler The click handler for the item.
      */
     public void addItemToPage(ItemStack item, Consumer<InventoryClickEvent> handler) {
-        Inventory currentInventory = pages.get(currentPage);
-        int slot = currentInventory.firstEmpty();
-        if (slot >= 0) {
-            currentInventory.setItem(slot, item);
-            setItemHandler(slot + (currentPage * getInventory().getSize()), handler);
-        } else {
+        Inventory lastInventory = pages.get(pages.size() - 1);
+        int slot = firstEmptySlot(lastInventory);
+        if (slot < 0) {
             addPage();
-            currentInventory = pages.get(pages.size() - 1);
-            slot = currentInventory.firstEmpty();
-            currentInventory.setItem(slot, item);
-            setItemHandler(slot + ((pages.size() - 1) * getInventory().getSize()), handler);
+            lastInventory = pages.get(pages.size() - 1);
+            slot = firstEmptySlot(lastInventory);
         }
+        lastInventory.setItem(slot, item);
+        pageHandlers.get(pages.size() - 1).set(slot, handler);
     }
 
     /**
@@ -87,13 +182,64 @@ public class PaginatedInfestedInv extends InfestedInv {
         addItemToPage(builder.build(), builder.getClickHandler());
     }
 
+    @Override
+    public boolean hasViewers() {
+        for (Inventory page : pages) {
+            if (!page.getViewers().isEmpty()) {
+                return true;
+            }
+        }
+        return super.hasViewers();
+    }
+
+    @Override
+    public boolean handleClose(InventoryCloseEvent e) {
+        boolean reopen = super.handleClose(e);
+
+        // Switching pages closes the previous page after the cursor was moved
+        int page = cursors.get(e.getPlayer().getUniqueId());
+        if (page >= 0 && pages.get(page) == e.getInventory()) {
+            cursors.remove(e.getPlayer().getUniqueId());
+        }
+        return reopen;
+    }
+
+    @Override
+    protected Consumer<InventoryClickEvent> getItemHandler(InventoryClickEvent event) {
+        int page = getPage(event.getWhoClicked());
+        return page >= 0 ? pageHandlers.get(page).get(event.getRawSlot(), event.getClick()) : null;
+    }
+
     @Override
     protected void onClick(InventoryClickEvent event) {
         super.onClick(event);
-        if (event.getCurrentItem() != null && event.getCurrentItem().isSimilar(nextPageItem)) {
-            openPage((Player) event.getWhoClicked(), currentPage + 1);
-        } else if (event.getCurrentItem() != null && event.getCurrentItem().isSimilar(prevPageItem)) {
-            openPage((Player) event.getWhoClicked(), currentPage - 1);
+        int page = getPage(event.getWhoClicked());
+        if (page < 0) {
+            return;
         }
+
+        int slot = event.getRawSlot();
+        if (slot == nextPageSlot && page + 1 < pages.size()) {
+            openPage((Player) event.getWhoClicked(), page + 1);
+        } else if (slot == prevPageSlot && page > 0) {
+            openPage((Player) event.getWhoClicked(), page - 1);
+        }
+    }
+
+    private int firstEmptySlot(Inventory inventory) {
+        ItemStack[] contents = inventory.getContents();
+        for (int slot = 0; slot < contents.length; slot++) {
+            // Navigation slots are reserved, even when the navigation item is hidden
+            if (contents[slot] == null && slot != prevPageSlot && slot != nextPageSlot) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void updateNavigation(int page) {
+        Inventory inventory = pages.get(page);
+        inventory.setItem(prevPageSlot, page > 0 ? prevPageItem : null);
+        inventory.setItem(nextPageSlot, page + 1 < pages.size() ? nextPageItem : null);
     }
 }
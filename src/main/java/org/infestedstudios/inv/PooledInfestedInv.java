@@ -0,0 +1,82 @@
+package org.infestedstudios.inv;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+
+/**
+ * Menu given by a {@link MenuPool}, going back to its pool when its last viewer closes it.
+ * The menu is reset when it is given again, so other close handlers still see its content.
+ */
+final class PooledInfestedInv extends InfestedInv {
+
+    final MenuPool.Key key;
+    private final MenuPool pool;
+
+    private boolean idle;
+    private boolean discarded;
+
+    PooledInfestedInv(MenuPool pool, MenuPool.Key key) {
+        super(createInventory(key));
+        this.pool = pool;
+        this.key = key;
+    }
+
+    @Override
+    public boolean isPooled() {
+        return true;
+    }
+
+    @Override
+    public void open(Player player) {
+        if (this.idle || this.discarded) {
+            throw new IllegalStateException("Menu was released to its pool");
+        }
+        super.open(player);
+    }
+
+    @Override
+    public boolean handleClose(InventoryCloseEvent e) {
+        boolean reopen = super.handleClose(e);
+
+        // The closing player is still counted as a viewer at this point
+        if (!reopen && !this.idle && !this.discarded && e.getInventory().getViewers().size() <= 1) {
+            this.idle = true;
+            stopUpdating();
+            this.pool.release(this);
+        }
+        return reopen;
+    }
+
+    @Override
+    public void discard() {
+        if (this.idle) {
+            this.pool.remove(this);
+        }
+        evict();
+    }
+
+    void reuse() {
+        reset();
+        this.idle = false;
+    }
+
+    void evict() {
+        this.discarded = true;
+        this.idle = false;
+        super.discard();
+    }
+
+    private static Inventory createInventory(MenuPool.Key key) {
+        if (key.getType() == InventoryType.CHEST) {
+            return key.getTitle() != null
+                    ? Bukkit.createInventory(null, key.getSize(), key.getTitle())
+                    : Bukkit.createInventory(null, key.getSize());
+        }
+        return key.getTitle() != null
+                ? Bukkit.createInventory(null, key.getType(), key.getTitle())
+                : Bukkit.createInventory(null, key.getType());
+    }
+}
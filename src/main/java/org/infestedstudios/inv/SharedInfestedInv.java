@@ -0,0 +1,352 @@
+package org.infestedstudios.inv;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+
+/**
+ * SharedInfestedInv is a menu shared by many players, where only a few slots differ per player.
+ * <p>
+ * The base menu holds the common content and handlers. Each player can get a {@link ViewerOverlay}
+ * storing only the slots that differ for them. Players without overlay view the base inventory
+ * directly, while players with an overlay get a view inventory built when they open the menu and
+ * dropped when they close it. Changes to the base content are sent to every viewer, except on
+ * the slots they override.
+ * <p>
+ * An overlay is kept while its player is online, so it is used again when the player reopens
+ * the menu. The overlays of a player are removed from every shared menu when the player quits.
+ */
+public class SharedInfestedInv extends InfestedInv {
+
+    // Shared menus with at least one overlay, to remove the overlays of quitting players
+    private static final Set<SharedInfestedInv> WITH_OVERLAYS = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+
+    private final String title;
+    private final Map<UUID, ViewerOverlay> overlays = new HashMap<>();
+    private final Map<Inventory, ViewerOverlay> views = new IdentityHashMap<>();
+
+    /**
+     * Create a new shared menu with a custom size and title.
+     *
+     * @param size  The size of the inventory.
+     * @param title The title of the inventory.
+     */
+    public SharedInfestedInv(int size, String title) {
+        super(size, title);
+        this.title = title;
+    }
+
+    /**
+     * Create a new shared menu with a custom type and title.
+     *
+     * @param type  The type of the inventory.
+     * @param title The title of the inventory.
+     */
+    public SharedInfestedInv(InventoryType type, String title) {
+        super(type, title);
+        this.title = title;
+    }
+
+    /**
+     * Get the overlay of a player, creating it if needed.
+     * A new overlay is used the next time the menu is opened for the player.
+     *
+     * @param player The player.
+     * @return The overlay of the player.
+     */
+    public ViewerOverlay getOverlay(Player player) {
+        ViewerOverlay overlay = this.overlays.get(player.getUniqueId());
+
+        if (overlay == null) {
+            overlay = new ViewerOverlay(this);
+            this.overlays.put(player.getUniqueId(), overlay);
+            WITH_OVERLAYS.add(this);
+        }
+        return overlay;
+    }
+
+    /**
+     * Remove the overlay of a player. The player sees the base content the next time
+     * the menu is opened for them.
+     *
+     * @param player The player.
+     */
+    public void removeOverlay(Player player) {
+        removeOverlay(player.getUniqueId());
+    }
+
+    /**
+     * Remove the overlays of a player from every shared menu.
+     * This is called by the InfestedInv listener when a player quits.
+     *
+     * @param playerId The unique id of the player.
+     */
+    public static void removeOverlays(UUID playerId) {
+        SharedInfestedInv[] menus;
+        synchronized (WITH_OVERLAYS) {
+            menus = WITH_OVERLAYS.toArray(new SharedInfestedInv[0]);
+        }
+
+        for (SharedInfestedInv menu : menus) {
+            menu.removeOverlay(playerId);
+        }
+    }
+
+    private void removeOverlay(UUID playerId) {
+        if (this.overlays.remove(playerId) != null && this.overlays.isEmpty()) {
+            WITH_OVERLAYS.remove(this);
+        }
+    }
+
+    @Override
+    public void open(Player player) {
+        ViewerOverlay overlay = this.overlays.get(player.getUniqueId());
+
+        if (overlay == null || overlay.isEmpty()) {
+            super.open(player);
+            return;
+        }
+
+        Inventory view = createView();
+        view.setContents(overlay.merge(getInventory().getContents()));
+
+        overlay.view = view;
+        this.views.put(view, overlay);
+        registerInventory(view);
+        player.openInventory(view);
+    }
+
+    @Override
+    public boolean handleClose(InventoryCloseEvent e) {
+        boolean reopen = super.handleClose(e);
+
+        ViewerOverlay overlay = this.views.remove(e.getInventory());
+        if (overlay != null) {
+            // The player may already be switching to a new view
+            if (overlay.view == e.getInventory()) {
+                overlay.view = null;
+            }
+            unregisterInventory(e.getInventory());
+        }
+        return reopen;
+    }
+
+    @Override
+    protected Consumer<InventoryClickEvent> getItemHandler(InventoryClickEvent e) {
+        if (e.getInventory() != getInventory()) {
+            ViewerOverlay overlay = this.views.get(e.getInventory());
+            int index = overlay != null ? overlay.indexOf(e.getRawSlot()) : -1;
+
+            if (index >= 0) {
+                return overlay.handlers[index];
+            }
+        }
+        return super.getItemHandler(e);
+    }
+
+    @Override
+    protected void updateSlot(int slot, ItemStack item) {
+        super.updateSlot(slot, item);
+
+        for (ViewerOverlay overlay : this.views.values()) {
+            if (overlay.indexOf(slot) < 0) {
+                overlay.view.setItem(slot, item);
+            }
+        }
+    }
+
+    @Override
+    public boolean hasViewers() {
+        return super.hasViewers() || !this.views.isEmpty();
+    }
+
+    @Override
+    protected void updateContents(ItemStack[] contents) {
+        super.updateContents(contents);
+
+        for (ViewerOverlay overlay : this.views.values()) {
+            overlay.view.setContents(overlay.merge(contents.clone()));
+        }
+    }
+
+    /**
+     * Get the number of players currently viewing this menu, in the base inventory or in a view.
+     *
+     * @return The number of viewers.
+     */
+    public int getViewerCount() {
+        int count = getInventory().getViewers().size();
+        for (Inventory view : this.views.keySet()) {
+            count += view.getViewers().size();
+        }
+        return count;
+    }
+
+    private Inventory createView() {
+        Inventory base = getInventory();
+
+        if (base.getType() == InventoryType.CHEST) {
+            return this.title != null
+                    ? Bukkit.createInventory(null, base.getSize(), this.title)
+                    : Bukkit.createInventory(null, base.getSize());
+        }
+        return this.title != null
+                ? Bukkit.createInventory(null, base.getType(), this.title)
+                : Bukkit.createInventory(null, base.getType());
+    }
+
+    /**
+     * The slots of a shared menu overridden for a single player.
+     * Only overridden slots are stored, in small parallel arrays.
+     */
+    public static final class ViewerOverlay {
+
+        private static final int INITIAL_CAPACITY = 4;
+
+        private final SharedInfestedInv menu;
+
+        private int[] slots = new int[INITIAL_CAPACITY];
+        private ItemStack[] items = new ItemStack[INITIAL_CAPACITY];
+        private Consumer<InventoryClickEvent>[] handlers = newHandlerArray(INITIAL_CAPACITY);
+        private int count;
+
+        // Only set while the player has the view open
+        private Inventory view;
+
+        private ViewerOverlay(SharedInfestedInv menu) {
+            this.menu = menu;
+        }
+
+        /**
+         * Override a slot for this player.
+         *
+         * @param slot The slot to override.
+         * @param item The item to show to this player.
+         */
+        public void setItem(int slot, ItemStack item) {
+            setItem(slot, item, null);
+        }
+
+        /**
+         * Override a slot for this player, with a click handler.
+         *
+         * @param slot    The slot to override.
+         * @param item    The item to show to this player.
+         * @param handler The click handler, or null to disable clicks on the base item.
+         */
+        public void setItem(int slot, ItemStack item, Consumer<InventoryClickEvent> handler) {
+            if (slot < 0 || slot >= this.menu.getInventory().getSize()) {
+                throw new IndexOutOfBoundsException("Invalid slot " + slot);
+            }
+
+            int index = indexOf(slot);
+            if (index < 0) {
+                if (this.count == this.slots.length) {
+                    grow();
+                }
+                index = this.count++;
+                this.slots[index] = slot;
+            }
+            this.items[index] = item;
+            this.handlers[index] = handler;
+
+            if (this.view != null) {
+                this.view.setItem(slot, item);
+            }
+        }
+
+        /**
+         * Remove the override of a slot, showing the base content again.
+         *
+         * @param slot The slot to reset.
+         */
+        public void reset(int slot) {
+            int index = indexOf(slot);
+            if (index < 0) {
+                return;
+            }
+
+            int last = --this.count;
+            this.slots[index] = this.slots[last];
+            this.items[index] = this.items[last];
+            this.handlers[index] = this.handlers[last];
+            this.items[last] = null;
+            this.handlers[last] = null;
+
+            if (this.view != null) {
+                this.view.setItem(slot, this.menu.getInventory().getItem(slot));
+            }
+        }
+
+        /**
+         * Check if the given slot is overridden.
+         *
+         * @param slot The slot.
+         * @return true if the slot is overridden for this player.
+         */
+        public boolean isOverridden(int slot) {
+            return indexOf(slot) >= 0;
+        }
+
+        /**
+         * Check if this overlay does not override any slot.
+         *
+         * @return true if no slot is overridden.
+         */
+        public boolean isEmpty() {
+            return this.count == 0;
+        }
+
+        /**
+         * Get the player view, if the player currently has it open.
+         *
+         * @return The view inventory, or null if it is not open.
+         */
+        public Inventory getView() {
+            return this.view;
+        }
+
+        private ItemStack[] merge(ItemStack[] contents) {
+            for (int i = 0; i < this.count; i++) {
+                contents[this.slots[i]] = this.items[i];
+            }
+            return contents;
+        }
+
+        private int indexOf(int slot) {
+            for (int i = 0; i < this.count; i++) {
+                if (this.slots[i] == slot) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void grow() {
+            int capacity = this.slots.length * 2;
+            this.slots = Arrays.copyOf(this.slots, capacity);
+            this.items = Arrays.copyOf(this.items, capacity);
+            this.handlers = Arrays.copyOf(this.handlers, capacity);
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static Consumer<InventoryClickEvent>[] newHandlerArray(int size) {
+            return new Consumer[size];
+        }
+    }
+}
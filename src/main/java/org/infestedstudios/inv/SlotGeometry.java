@@ -0,0 +1,176 @@
+package org.infestedstudios.inv;
+
+import org.bukkit.event.inventory.InventoryType;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed slot regions of an inventory shape: borders, corners, rows and columns.
+ * <p>
+ * Geometries are immutable and cached by inventory type and size, so every menu with the same
+ * shape shares the same instance and building a menu does not allocate any geometry.
+ */
+public final class SlotGeometry {
+
+    private static final Map<Integer, SlotGeometry> CACHE = new ConcurrentHashMap<>();
+
+    private final InventoryType type;
+    private final int size;
+    private final int width;
+    private final SlotRegion all;
+    private final SlotRegion borders;
+    private final SlotRegion corners;
+    private final SlotRegion[] rows;
+    private final SlotRegion[] columns;
+
+    private SlotGeometry(InventoryType type, int size) {
+        this.type = type;
+        this.size = size;
+        this.width = widthOf(type, size);
+        this.all = SlotRegion.range(0, size - 1);
+
+        long borderMask = 0L;
+        long cornerMask = 0L;
+        for (int i = 0; i < size; i++) {
+            if (size < 27 || i < 9 || i % 9 == 0 || (i - 8) % 9 == 0 || i > size - 9) {
+                borderMask |= 1L << i;
+            }
+            if (i < 2 || (i > 6 && i < 10) || i == 17 || i == size - 18
+                    || (i > size - 11 && i < size - 7) || i > size - 3) {
+                cornerMask |= 1L << i;
+            }
+        }
+        this.borders = SlotRegion.ofMask(borderMask);
+        this.corners = SlotRegion.ofMask(cornerMask);
+
+        int rowCount = (size + this.width - 1) / this.width;
+        this.rows = new SlotRegion[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            this.rows[row] = SlotRegion.range(row * this.width, Math.min(size, (row + 1) * this.width) - 1);
+        }
+
+        this.columns = new SlotRegion[this.width];
+        for (int col = 0; col < this.width; col++) {
+            long mask = 0L;
+            for (int slot = col; slot < size; slot += this.width) {
+                mask |= 1L << slot;
+            }
+            this.columns[col] = SlotRegion.ofMask(mask);
+        }
+    }
+
+    /**
+     * Get the geometry of an inventory shape.
+     *
+     * @param type The inventory type.
+     * @param size The inventory size.
+     * @return The shared geometry of this shape.
+     */
+    public static SlotGeometry of(InventoryType type, int size) {
+        Objects.requireNonNull(type, "type");
+        if (size <= 0 || size > SlotRegion.MAX_SLOTS) {
+            throw new IllegalArgumentException("Unsupported inventory size: " + size);
+        }
+        return CACHE.computeIfAbsent(type.ordinal() * (SlotRegion.MAX_SLOTS + 1) + size, k -> new SlotGeometry(type, size));
+    }
+
+    public InventoryType getType() {
+        return this.type;
+    }
+
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Get the number of slots per row.
+     *
+     * @return The row width.
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Get the number of rows.
+     *
+     * @return The row count.
+     */
+    public int getRowCount() {
+        return this.rows.length;
+    }
+
+    /**
+     * Get every slot of the inventory.
+     *
+     * @return The region of all slots.
+     */
+    public SlotRegion all() {
+        return this.all;
+    }
+
+    /**
+     * Get the border slots. Every slot is a border in inventories with less than 3 rows.
+     *
+     * @return The border region.
+     */
+    public SlotRegion borders() {
+        return this.borders;
+    }
+
+    /**
+     * Get the corner slots.
+     *
+     * @return The corner region.
+     */
+    public SlotRegion corners() {
+        return this.corners;
+    }
+
+    /**
+     * Get the slots of a row.
+     *
+     * @param row The row, starting from 0.
+     * @return The row region.
+     */
+    public SlotRegion row(int row) {
+        return this.rows[row];
+    }
+
+    /**
+     * Get the slots of a column.
+     *
+     * @param col The column, starting from 0.
+     * @return The column region.
+     */
+    public SlotRegion column(int col) {
+        return this.columns[col];
+    }
+
+    /**
+     * Get a rectangle of slots in this inventory.
+     *
+     * @param rowFrom The first row (inclusive, starting from 0).
+     * @param colFrom The first column (inclusive, starting from 0).
+     * @param rowTo   The last row (inclusive).
+     * @param colTo   The last column (inclusive).
+     * @return The rectangle region.
+     */
+    public SlotRegion rectangle(int rowFrom, int colFrom, int rowTo, int colTo) {
+        return SlotRegion.rectangle(this.width, rowFrom, colFrom, rowTo, colTo).intersection(this.all);
+    }
+
+    private static int widthOf(InventoryType type, int size) {
+        switch (type) {
+            case DISPENSER:
+            case DROPPER:
+                return 3;
+            case HOPPER:
+                return 5;
+            default:
+                return size % 9 == 0 ? 9 : size;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.infestedstudios.inv;
+
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryClickEvent;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Dense, array-backed table of slot click handlers.
+ * <p>
+ * The table is allocated once for a fixed number of slots and resolves a handler with plain
+ * array indexing, without boxing the slot. Each slot holds a default handler and, optionally,
+ * handlers for specific {@link ClickType}s which take precedence over the default one.
+ */
+public final class SlotHandlerTable {
+
+    private static final ClickType[] CLICK_TYPES = ClickType.values();
+
+    private final int size;
+    private final Consumer<InventoryClickEvent>[] handlers;
+
+    // Allocated on the first typed handler, indexed by slot * CLICK_TYPES.length + type
+    private Consumer<InventoryClickEvent>[] typedHandlers;
+
+    /**
+     * Create a new empty handler table.
+     *
+     * @param size The number of slots of the table.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public SlotHandlerTable(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size cannot be negative: " + size);
+        }
+        this.size = size;
+        this.handlers = new Consumer[size];
+    }
+
+    /**
+     * Get the number of slots of this table.
+     *
+     * @return The table size.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Set the default handler of a slot.
+     *
+     * @param slot    The slot.
+     * @param handler The handler, or null to remove it.
+     */
+    public void set(int slot, Consumer<InventoryClickEvent> handler) {
+        this.handlers[checkSlot(slot)] = handler;
+    }
+
+    /**
+     * Set the handler of a slot for a specific click type.
+     *
+     * @param slot    The slot.
+     * @param type    The click type.
+     * @param handler The handler, or null to remove it.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void set(int slot, ClickType type, Consumer<InventoryClickEvent> handler) {
+        checkSlot(slot);
+
+        if (this.typedHandlers == null) {
+            if (handler == null) {
+                return;
+            }
+            this.typedHandlers = new Consumer[this.size * CLICK_TYPES.length];
+        }
+        this.typedHandlers[slot * CLICK_TYPES.length + type.ordinal()] = handler;
+    }
+
+    /**
+     * Set the default handler of every slot between two slots (inclusive).
+     * Nothing is changed if the first slot is after the last slot.
+     *
+     * @param slotFrom The first slot.
+     * @param slotTo   The last slot.
+     * @param handler  The handler, or null to remove it.
+     */
+    public void set(int slotFrom, int slotTo, Consumer<InventoryClickEvent> handler) {
+        if (slotFrom > slotTo) {
+            return;
+        }
+        checkSlot(slotFrom);
+        checkSlot(slotTo);
+        Arrays.fill(this.handlers, slotFrom, slotTo + 1, handler);
+    }
+
+    /**
+     * Set the default handler of multiple slots.
+     *
+     * @param slots   The slots.
+     * @param handler The handler, or null to remove it.
+     */
+    public void set(int[] slots, Consumer<InventoryClickEvent> handler) {
+        for (int slot : slots) {
+            this.handlers[checkSlot(slot)] = handler;
+        }
+    }
+
+    /**
+     * Remove the default and all typed handlers of a slot.
+     *
+     * @param slot The slot.
+     */
+    public void remove(int slot) {
+        this.handlers[checkSlot(slot)] = null;
+
+        if (this.typedHandlers != null) {
+            int start = slot * CLICK_TYPES.length;
+            Arrays.fill(this.typedHandlers, start, start + CLICK_TYPES.length, null);
+        }
+    }
+
+    /**
+     * Remove every handler of this table.
+     */
+    public void clear() {
+        Arrays.fill(this.handlers, null);
+        if (this.typedHandlers != null) {
+            Arrays.fill(this.typedHandlers, null);
+        }
+    }
+
+    /**
+     * Get the default handler of a slot.
+     *
+     * @param slot The slot.
+     * @return The handler, or null if the slot is out of the table or has no handler.
+     */
+    public Consumer<InventoryClickEvent> get(int slot) {
+        return slot >= 0 && slot < this.size ? this.handlers[slot] : null;
+    }
+
+    /**
+     * Get the handler to call for a click on a slot. A handler registered for the click type
+     * is returned before the default handler of the slot.
+     *
+     * @param slot The clicked slot.
+     * @param type The click type.
+     * @return The handler, or null if the slot is out of the table or has no handler.
+     */
+    public Consumer<InventoryClickEvent> get(int slot, ClickType type) {
+        if (slot < 0 || slot >= this.size) {
+            return null;
+        }
+
+        if (this.typedHandlers != null && type != null) {
+            Consumer<InventoryClickEvent> handler = this.typedHandlers[slot * CLICK_TYPES.length + type.ordinal()];
+            if (handler != null) {
+                return handler;
+            }
+        }
+        return this.handlers[slot];
+    }
+
+    private int checkSlot(int slot) {
+        if (slot < 0 || slot >= this.size) {
+            throw new IndexOutOfBoundsException("Invalid slot " + slot + " for size " + this.size);
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,232 @@
+package org.infestedstudios.inv;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable set of inventory slots, stored as a 64 bits mask.
+ * <p>
+ * Regions can be combined with {@link #union(SlotRegion)}, {@link #difference(SlotRegion)} and
+ * {@link #intersection(SlotRegion)}, and passed directly to the fill and handler methods of
+ * {@link InfestedInv}. The slot array of a region is computed once and shared.
+ */
+public final class SlotRegion {
+
+    /**
+     * The maximum number of slots of a region.
+     */
+    public static final int MAX_SLOTS = Long.SIZE;
+
+    /**
+     * A region without any slot.
+     */
+    public static final SlotRegion EMPTY = new SlotRegion(0L);
+
+    private final long mask;
+    private final int[] slots;
+
+    private SlotRegion(long mask) {
+        this.mask = mask;
+        this.slots = new int[Long.bitCount(mask)];
+
+        int index = 0;
+        for (long bits = mask; bits != 0; bits &= bits - 1) {
+            this.slots[index++] = Long.numberOfTrailingZeros(bits);
+        }
+    }
+
+    /**
+     * Create a region from slots.
+     *
+     * @param slots The slots of the region.
+     * @return The region.
+     */
+    public static SlotRegion of(int... slots) {
+        long mask = 0L;
+        for (int slot : slots) {
+            mask |= bit(slot);
+        }
+        return new SlotRegion(mask);
+    }
+
+    /**
+     * Create a region from a bit mask, where bit {@code n} is set if slot {@code n} is in the region.
+     *
+     * @param mask The slot mask.
+     * @return The region.
+     */
+    public static SlotRegion ofMask(long mask) {
+        return mask == 0L ? EMPTY : new SlotRegion(mask);
+    }
+
+    /**
+     * Create a region of every slot between two slots (inclusive).
+     *
+     * @param slotFrom The first slot.
+     * @param slotTo   The last slot.
+     * @return The region.
+     */
+    public static SlotRegion range(int slotFrom, int slotTo) {
+        if (slotFrom > slotTo) {
+            return EMPTY;
+        }
+        bit(slotFrom);
+        bit(slotTo);
+
+        long mask = slotTo - slotFrom == MAX_SLOTS - 1 ? -1L : ((1L << (slotTo - slotFrom + 1)) - 1) << slotFrom;
+        return new SlotRegion(mask);
+    }
+
+    /**
+     * Create a rectangular region in an inventory with rows of 9 slots.
+     *
+     * @param rowFrom The first row (inclusive, starting from 0).
+     * @param colFrom The first column (inclusive, starting from 0).
+     * @param rowTo   The last row (inclusive).
+     * @param colTo   The last column (inclusive).
+     * @return The region.
+     */
+    public static SlotRegion rectangle(int rowFrom, int colFrom, int rowTo, int colTo) {
+        return rectangle(9, rowFrom, colFrom, rowTo, colTo);
+    }
+
+    /**
+     * Create a rectangular region in an inventory with rows of the given width.
+     *
+     * @param width   The number of slots per row.
+     * @param rowFrom The first row (inclusive, starting from 0).
+     * @param colFrom The first column (inclusive, starting from 0).
+     * @param rowTo   The last row (inclusive).
+     * @param colTo   The last column (inclusive).
+     * @return The region.
+     */
+    public static SlotRegion rectangle(int width, int rowFrom, int colFrom, int rowTo, int colTo) {
+        if (colFrom < 0 || colTo >= width) {
+            throw new IndexOutOfBoundsException("Invalid columns " + colFrom + "-" + colTo + " for width " + width);
+        }
+
+        long mask = 0L;
+        for (int row = rowFrom; row <= rowTo; row++) {
+            mask |= range(row * width + colFrom, row * width + colTo).mask;
+        }
+        return new SlotRegion(mask);
+    }
+
+    /**
+     * Create a region containing the slots of this region and of another one.
+     *
+     * @param other The other region.
+     * @return The union of both regions.
+     */
+    public SlotRegion union(SlotRegion other) {
+        return with(this.mask | other.mask);
+    }
+
+    /**
+     * Create a region containing the slots of this region which are not in another one.
+     *
+     * @param other The region to remove.
+     * @return The difference of both regions.
+     */
+    public SlotRegion difference(SlotRegion other) {
+        return with(this.mask & ~other.mask);
+    }
+
+    /**
+     * Create a region containing the slots in both this region and another one.
+     *
+     * @param other The other region.
+     * @return The intersection of both regions.
+     */
+    public SlotRegion intersection(SlotRegion other) {
+        return with(this.mask & other.mask);
+    }
+
+    /**
+     * Check if this region contains a slot.
+     *
+     * @param slot The slot.
+     * @return true if the slot is in this region.
+     */
+    public boolean contains(int slot) {
+        return slot >= 0 && slot < MAX_SLOTS && (this.mask & (1L << slot)) != 0;
+    }
+
+    /**
+     * Get the number of slots of this region.
+     *
+     * @return The number of slots.
+     */
+    public int size() {
+        return this.slots.length;
+    }
+
+    /**
+     * Check if this region has no slot.
+     *
+     * @return true if the region is empty.
+     */
+    public boolean isEmpty() {
+        return this.mask == 0L;
+    }
+
+    /**
+     * Get the slots of this region, in ascending order.
+     *
+     * @return A copy of the slots.
+     */
+    public int[] toArray() {
+        return this.slots.clone();
+    }
+
+    /**
+     * Run an action for each slot of this region, in ascending order.
+     *
+     * @param action The action to run.
+     */
+    public void forEach(IntConsumer action) {
+        for (int slot : this.slots) {
+            action.accept(slot);
+        }
+    }
+
+    /**
+     * Get the bit mask of this region, where bit {@code n} is set if slot {@code n} is in the region.
+     *
+     * @return The mask.
+     */
+    public long mask() {
+        return this.mask;
+    }
+
+    // Shared array, must not be modified
+    int[] slots() {
+        return this.slots;
+    }
+
+    private SlotRegion with(long mask) {
+        return mask == this.mask ? this : new SlotRegion(mask);
+    }
+
+    private static long bit(int slot) {
+        if (slot < 0 || slot >= MAX_SLOTS) {
+            throw new IndexOutOfBoundsException("Invalid slot " + slot);
+        }
+        return 1L << slot;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof SlotRegion && ((SlotRegion) o).mask == this.mask);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.mask);
+    }
+
+    @Override
+    public String toString() {
+        return "SlotRegion" + Arrays.toString(this.slots);
+    }
+}
@@ -0,0 +1,294 @@
+package org.infestedstudios.inv;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * VirtualPaginatedInfestedInv is a paginated inventory backed by a {@link PageSource}.
+ * <p>
+ * Only the visible page is rendered, into the single inventory of this menu, and the
+ * most recently rendered pages are kept in a small LRU cache. Memory usage does not depend
+ * on the number of items of the source.
+ */
+public class VirtualPaginatedInfestedInv extends InfestedInv {
+
+    private static final int DEFAULT_CACHE_SIZE = 4;
+
+    private final PageSource source;
+    private final ItemStack nextPageItem;
+    private final ItemStack prevPageItem;
+    private final Map<Integer, RenderedPage> pageCache = new LinkedHashMap<Integer, RenderedPage>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, RenderedPage> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    private int[] contentSlots;
+    private int[] slotToIndex;
+    private int prevPageSlot = -1;
+    private int nextPageSlot = -1;
+    private int cacheSize = DEFAULT_CACHE_SIZE;
+    private int currentPage = 0;
+    private RenderedPage renderedPage;
+
+    /**
+     * Create a new virtual paginated inventory. Items are displayed in every row but the last one,
+     * which holds the previous page item in its first slot and the next page item in its last slot.
+     *
+     * @param size         The size of the inventory, including the navigation row, at least 18.
+     * @param title        The title of the inventory.
+     * @param source       The source of the items.
+     * @param nextPageItem The item used for navigating to the next page.
+     * @param prevPageItem The item used for navigating to the previous page.
+     * @throws IllegalArgumentException if the size is lower than 18.
+     */
+    public VirtualPaginatedInfestedInv(int size, String title, PageSource source,
+                                       ItemStack nextPageItem, ItemStack prevPageItem) {
+        super(checkSize(size), title);
+        this.source = Objects.requireNonNull(source, "source");
+        this.nextPageItem = nextPageItem;
+        this.prevPageItem = prevPageItem;
+
+        int[] slots = new int[size - 9];
+        Arrays.setAll(slots, i -> i);
+        setContentSlots(slots);
+        setNavigationSlots(size - 9, size - 1);
+    }
+
+    /**
+     * Set the slots displaying the items of the source, in display order.
+     * The previous content slots which are not content slots anymore are cleared.
+     *
+     * @param contentSlots The content slots.
+     * @throws IllegalArgumentException if there is no slot, if a slot is outside of the inventory,
+     *                                  is listed twice or is a navigation slot.
+     */
+    public void setContentSlots(int[] contentSlots) {
+        if (contentSlots.length == 0) {
+            throw new IllegalArgumentException("contentSlots cannot be empty");
+        }
+
+        int[] lookup = new int[getInventory().getSize()];
+        Arrays.fill(lookup, -1);
+        for (int i = 0; i < contentSlots.length; i++) {
+            int slot = checkSlot(contentSlots[i]);
+
+            if (lookup[slot] >= 0) {
+                throw new IllegalArgumentException("Content slot " + slot + " is listed twice");
+            }
+            if (slot == this.prevPageSlot || slot == this.nextPageSlot) {
+                throw new IllegalArgumentException("Content slot " + slot + " is a navigation slot");
+            }
+            lookup[slot] = i;
+        }
+
+        if (this.contentSlots != null) {
+            for (int slot : this.contentSlots) {
+                if (lookup[slot] < 0) {
+                    updateSlot(slot, null);
+                }
+            }
+        }
+
+        this.contentSlots = contentSlots.clone();
+        this.slotToIndex = lookup;
+        invalidate();
+    }
+
+    /**
+     * Set the slots of the navigation items. The items of the previous navigation slots are cleared.
+     *
+     * @param prevPageSlot The slot of the previous page item.
+     * @param nextPageSlot The slot of the next page item.
+     * @throws IllegalArgumentException if a slot is outside of the inventory or is a content slot,
+     *                                  or if both slots are the same.
+     */
+    public void setNavigationSlots(int prevPageSlot, int nextPageSlot) {
+        checkSlot(prevPageSlot);
+        checkSlot(nextPageSlot);
+
+        if (prevPageSlot == nextPageSlot) {
+            throw new IllegalArgumentException("The navigation slots must be different: " + prevPageSlot);
+        }
+        if (this.slotToIndex[prevPageSlot] >= 0 || this.slotToIndex[nextPageSlot] >= 0) {
+            throw new IllegalArgumentException("The navigation slots cannot be content slots: "
+                    + prevPageSlot + ", " + nextPageSlot);
+        }
+
+        for (int slot : new int[]{this.prevPageSlot, this.nextPageSlot}) {
+            if (slot >= 0 && slot != prevPageSlot && slot != nextPageSlot) {
+                updateSlot(slot, null);
+            }
+        }
+
+        this.prevPageSlot = prevPageSlot;
+        this.nextPageSlot = nextPageSlot;
+        invalidate();
+    }
+
+    /**
+     * Set the maximum number of rendered pages kept in the cache.
+     *
+     * @param cacheSize The cache size.
+     */
+    public void setPageCacheSize(int cacheSize) {
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("cacheSize must be positive: " + cacheSize);
+        }
+        this.cacheSize = cacheSize;
+        invalidate();
+    }
+
+    /**
+     * Drop every cached page and render the current page again.
+     * This must be called when the content of the source changed.
+     */
+    public void invalidate() {
+        this.pageCache.clear();
+        this.renderedPage = null;
+
+        if (this.contentSlots == null) {
+            return;
+        }
+
+        // The source may have shrunk, even while nobody is viewing this menu
+        this.currentPage = Math.min(this.currentPage, getPageCount() - 1);
+
+        if (this.prevPageSlot >= 0 && hasViewers()) {
+            showPage(this.currentPage);
+        }
+    }
+
+    /**
+     * Get the number of pages.
+     *
+     * @return The number of pages, at least 1.
+     */
+    public int getPageCount() {
+        int size = this.source.size();
+        return Math.max(1, (size + this.contentSlots.length - 1) / this.contentSlots.length);
+    }
+
+    /**
+     * Get the currently displayed page.
+     *
+     * @return The current page, starting from 0.
+     */
+    public int getCurrentPage() {
+        return this.currentPage;
+    }
+
+    @Override
+    public void open(Player player) {
+        openPage(player, Math.min(this.currentPage, getPageCount() - 1));
+    }
+
+    /**
+     * Opens a specific page for the player.
+     *
+     * @param player The player to open the page for.
+     * @param page   The page number to open.
+     */
+    public void openPage(Player player, int page) {
+        if (page < 0 || page >= getPageCount()) {
+            return;
+        }
+        showPage(page);
+        super.open(player);
+    }
+
+    @Override
+    protected Consumer<InventoryClickEvent> getItemHandler(InventoryClickEvent event) {
+        int slot = event.getRawSlot();
+        RenderedPage page = this.renderedPage;
+
+        if (page != null && slot >= 0 && slot < this.slotToIndex.length && this.slotToIndex[slot] >= 0) {
+            return page.handlers[this.slotToIndex[slot]];
+        }
+        return super.getItemHandler(event);
+    }
+
+    @Override
+    protected void onClick(InventoryClickEvent event) {
+        super.onClick(event);
+
+        int slot = event.getRawSlot();
+        if (slot == this.nextPageSlot && this.currentPage + 1 < getPageCount()) {
+            showPage(this.currentPage + 1);
+        } else if (slot == this.prevPageSlot && this.currentPage > 0) {
+            showPage(this.currentPage - 1);
+        }
+    }
+
+    private void showPage(int page) {
+        RenderedPage rendered = this.pageCache.get(page);
+        if (rendered == null) {
+            rendered = renderPage(page);
+            this.pageCache.put(page, rendered);
+        }
+
+        // Keep the items outside of the content and navigation slots
+        ItemStack[] contents = getInventory().getContents();
+        for (int i = 0; i < this.contentSlots.length; i++) {
+            contents[this.contentSlots[i]] = rendered.items[i];
+        }
+        contents[this.prevPageSlot] = page > 0 ? this.prevPageItem : null;
+        contents[this.nextPageSlot] = page + 1 < getPageCount() ? this.nextPageItem : null;
+        updateContents(contents);
+
+        this.currentPage = page;
+        this.renderedPage = rendered;
+    }
+
+    private int checkSlot(int slot) {
+        if (slot < 0 || slot >= getInventory().getSize()) {
+            throw new IllegalArgumentException("Slot " + slot + " is outside of the inventory of size "
+                    + getInventory().getSize());
+        }
+        return slot;
+    }
+
+    private static int checkSize(int size) {
+        if (size < 18) {
+            throw new IllegalArgumentException("The size must be at least 18, for a content row and the navigation row: " + size);
+        }
+        return size;
+    }
+
+    private RenderedPage renderPage(int page) {
+        int perPage = this.contentSlots.length;
+        int from = page * perPage;
+        int to = Math.min(from + perPage, this.source.size());
+
+        RenderedPage rendered = new RenderedPage(perPage);
+        if (from < to) {
+            this.source.render(from, to, (index, item, handler) -> {
+                if (index >= from && index < to) {
+                    rendered.items[index - from] = item;
+                    rendered.handlers[index - from] = handler;
+                }
+            });
+        }
+        return rendered;
+    }
+
+    private static final class RenderedPage {
+
+        private final ItemStack[] items;
+        private final Consumer<InventoryClickEvent>[] handlers;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private RenderedPage(int size) {
+            this.items = new ItemStack[size];
+            this.handlers = new Consumer[size];
+        }
+    }
+}
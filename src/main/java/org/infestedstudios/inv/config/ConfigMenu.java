@@ -0,0 +1,96 @@
+package org.infestedstudios.inv.config;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.infestedstudios.inv.InfestedInv;
+
+/**
+ * Menu created from a {@link MenuDefinition} by a {@link MenuLoader}.
+ * <p>
+ * When the file of the menu is reloaded, the new layout is applied in place if the inventory type,
+ * size and title did not change. Otherwise the viewers are moved to a new menu by the loader.
+ */
+public final class ConfigMenu extends InfestedInv {
+
+    private final MenuLoader loader;
+    private MenuDefinition definition;
+
+    ConfigMenu(MenuLoader loader, MenuDefinition definition) {
+        super(createInventory(definition));
+        this.loader = loader;
+        this.definition = definition;
+        setMetricsId("menu:" + definition.getId());
+        applyLayout(definition.getLayout());
+    }
+
+    /**
+     * Get the id of the definition of this menu.
+     *
+     * @return the menu id
+     */
+    public String getMenuId() {
+        return this.definition.getId();
+    }
+
+    /**
+     * Get the definition currently applied to this menu.
+     *
+     * @return the menu definition
+     */
+    public MenuDefinition getDefinition() {
+        return this.definition;
+    }
+
+    public MenuLoader getLoader() {
+        return this.loader;
+    }
+
+    /**
+     * Open this menu, applying the latest definition of its file first if it was reloaded since
+     * this menu was last viewed, for example when going back to it in a navigation session.
+     *
+     * @param player the player to open the menu for
+     */
+    @Override
+    public void open(Player player) {
+        MenuDefinition latest = this.loader.get(getMenuId());
+
+        if (latest != null) {
+            update(latest);
+        }
+        super.open(player);
+    }
+
+    /**
+     * Apply a new definition of this menu in place.
+     *
+     * @param latest the new definition
+     * @return false if the definition has another shape and cannot be applied to this inventory
+     */
+    boolean update(MenuDefinition latest) {
+        if (latest == this.definition) {
+            return true;
+        }
+        if (!latest.hasSameShape(this.definition)) {
+            return false;
+        }
+
+        this.definition = latest;
+        applyLayout(latest.getLayout());
+        return true;
+    }
+
+    private static Inventory createInventory(MenuDefinition definition) {
+        if (definition.getType() == InventoryType.CHEST) {
+            return definition.getTitle() != null
+                    ? Bukkit.createInventory(null, definition.getSize(), definition.getTitle())
+                    : Bukkit.createInventory(null, definition.getSize());
+        }
+
+        return definition.getTitle() != null
+                ? Bukkit.createInventory(null, definition.getType(), definition.getTitle())
+                : Bukkit.createInventory(null, definition.getType());
+    }
+}
@@ -0,0 +1,22 @@
+package org.infestedstudios.inv.config;
+
+import org.bukkit.event.inventory.InventoryClickEvent;
+
+/**
+ * Click action bound by name to the items of menu files.
+ * <p>
+ * In a menu file, {@code action: "open shop"} binds the action named {@code open} with the
+ * argument {@code shop}. Actions are resolved when the file is compiled, so a click only calls
+ * the action, without any lookup.
+ */
+@FunctionalInterface
+public interface MenuAction {
+
+    /**
+     * Run this action for a click.
+     *
+     * @param event    the click event
+     * @param argument the text following the action name, or an empty string if there is none
+     */
+    void run(InventoryClickEvent event, String argument);
+}
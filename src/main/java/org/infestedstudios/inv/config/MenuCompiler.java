@@ -0,0 +1,225 @@
+package org.infestedstudios.inv.config;
+
+import org.bukkit.ChatColor;
+import org.bukkit.Color;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.ItemFlag;
+import org.bukkit.inventory.ItemStack;
+import org.infestedstudios.inv.CompiledLayout;
+import org.infestedstudios.inv.SlotGeometry;
+import org.infestedstudios.inv.utils.ItemBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Compiles the content of a menu file into a {@link MenuDefinition}.
+ * <p>
+ * The compiler does not touch any menu or player, so it can run off the main thread.
+ * Any error in the file is reported with an {@link IllegalArgumentException}.
+ */
+final class MenuCompiler {
+
+    private final Function<String, MenuAction> actions;
+
+    MenuCompiler(Function<String, MenuAction> actions) {
+        this.actions = actions;
+    }
+
+    /**
+     * Compile a menu file.
+     *
+     * @param id      the menu id
+     * @param content the YAML content of the file
+     * @return the compiled definition
+     * @throws IllegalArgumentException if the file is not a valid menu
+     */
+    MenuDefinition compile(String id, String content) {
+        YamlConfiguration config = new YamlConfiguration();
+        try {
+            config.loadFromString(content);
+        } catch (InvalidConfigurationException e) {
+            throw new IllegalArgumentException("Invalid YAML: " + e.getMessage(), e);
+        }
+
+        InventoryType type = parseEnum(InventoryType.class, config.getString("type", "CHEST"), "inventory type");
+        List<String> masks = config.getStringList("masks");
+        int size = parseSize(config, type, masks.size());
+        String title = config.isString("title") ? color(config.getString("title")) : null;
+
+        Map<Character, ItemStack> items = new HashMap<>();
+        Map<Character, Consumer<InventoryClickEvent>> handlers = new HashMap<>();
+        ConfigurationSection itemsSection = config.getConfigurationSection("items");
+
+        if (itemsSection != null) {
+            for (String key : itemsSection.getKeys(false)) {
+                if (key.length() != 1) {
+                    throw new IllegalArgumentException("Item key '" + key + "' must be a single mask character");
+                }
+
+                ConfigurationSection itemSection = itemsSection.getConfigurationSection(key);
+                if (itemSection == null) {
+                    throw new IllegalArgumentException("Item '" + key + "' must be a section");
+                }
+
+                try {
+                    items.put(key.charAt(0), parseItem(itemSection));
+
+                    if (itemSection.isString("action")) {
+                        handlers.put(key.charAt(0), parseAction(itemSection.getString("action")));
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid item '" + key + "': " + e.getMessage(), e);
+                }
+            }
+        }
+
+        int width = SlotGeometry.of(type, size).getWidth();
+        CompiledLayout.Builder builder = new CompiledLayout.Builder(size);
+
+        // Every slot is defined, so applying the layout also clears the slots removed from the file
+        for (int slot = 0; slot < size; slot++) {
+            builder.set(slot, null, null);
+        }
+
+        for (int line = 0; line < masks.size(); line++) {
+            String mask = masks.get(line);
+
+            if (mask.length() > width || line * width + mask.length() > size) {
+                throw new IllegalArgumentException("Mask line " + (line + 1) + " does not fit in a "
+                        + type + " inventory of size " + size);
+            }
+
+            for (int col = 0; col < mask.length(); col++) {
+                char c = mask.charAt(col);
+                ItemStack item = items.get(c);
+
+                if (item != null) {
+                    builder.set(line * width + col, item, handlers.get(c));
+                }
+            }
+        }
+
+        return new MenuDefinition(id, type, size, title, builder.build());
+    }
+
+    private int parseSize(ConfigurationSection config, InventoryType type, int lines) {
+        if (type != InventoryType.CHEST) {
+            if (config.contains("size") && config.getInt("size") != type.getDefaultSize()) {
+                throw new IllegalArgumentException("The size of a " + type + " inventory must be " + type.getDefaultSize());
+            }
+            return type.getDefaultSize();
+        }
+
+        int size = config.getInt("size", 9 * lines);
+        if (size <= 0 || size > 54 || size % 9 != 0) {
+            throw new IllegalArgumentException("Invalid chest size " + size + ", must be a multiple of 9 up to 54");
+        }
+        return size;
+    }
+
+    private ItemStack parseItem(ConfigurationSection section) {
+        String materialName = section.getString("material");
+        Material material = materialName != null ? Material.matchMaterial(materialName) : null;
+
+        if (material == null) {
+            throw new IllegalArgumentException("Unknown material " + materialName);
+        }
+
+        ItemBuilder builder = new ItemBuilder(material).deferMeta();
+
+        if (section.contains("amount")) {
+            builder.amount(section.getInt("amount"));
+        }
+        if (section.isString("name")) {
+            builder.name(color(section.getString("name")));
+        }
+        if (section.isList("lore")) {
+            List<String> lore = new ArrayList<>();
+            section.getStringList("lore").forEach(line -> lore.add(color(line)));
+            builder.lore(lore);
+        } else if (section.isString("lore")) {
+            builder.lore(Collections.singletonList(color(section.getString("lore"))));
+        }
+
+        ConfigurationSection enchantments = section.getConfigurationSection("enchantments");
+        if (enchantments != null) {
+            for (String name : enchantments.getKeys(false)) {
+                Enchantment enchantment = Enchantment.getByKey(NamespacedKey.minecraft(name.toLowerCase(Locale.ROOT)));
+
+                if (enchantment == null) {
+                    throw new IllegalArgumentException("Unknown enchantment " + name);
+                }
+                builder.enchant(enchantment, enchantments.getInt(name, 1));
+            }
+        }
+
+        for (String flag : section.getStringList("flags")) {
+            builder.flags(parseEnum(ItemFlag.class, flag, "item flag"));
+        }
+
+        if (section.isString("color")) {
+            builder.armorColor(parseColor(section.getString("color")));
+        }
+        if (section.isInt("model-data")) {
+            int modelData = section.getInt("model-data");
+            builder.meta(meta -> meta.setCustomModelData(modelData));
+        }
+
+        return builder.build();
+    }
+
+    private Consumer<InventoryClickEvent> parseAction(String spec) {
+        String trimmed = spec.trim();
+        int space = trimmed.indexOf(' ');
+        String name = space == -1 ? trimmed : trimmed.substring(0, space);
+        String argument = space == -1 ? "" : trimmed.substring(space + 1).trim();
+        MenuAction action = this.actions.apply(name.toLowerCase(Locale.ROOT));
+
+        if (action == null) {
+            throw new IllegalArgumentException("Unknown action " + name);
+        }
+        return e -> action.run(e, argument);
+    }
+
+    private static Color parseColor(String value) {
+        try {
+            if (value.startsWith("#")) {
+                return Color.fromRGB(Integer.parseInt(value.substring(1), 16));
+            }
+
+            String[] parts = value.split(",");
+            if (parts.length == 3) {
+                return Color.fromRGB(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()), Integer.parseInt(parts[2].trim()));
+            }
+        } catch (IllegalArgumentException e) {
+            // Reported below with the value
+        }
+        throw new IllegalArgumentException("Invalid color " + value + ", expected #RRGGBB or R, G, B");
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String description) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT).replace('-', '_').replace(' ', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + description + " " + value, e);
+        }
+    }
+
+    private static String color(String text) {
+        return ChatColor.translateAlternateColorCodes('&', text);
+    }
+}
@@ -0,0 +1,76 @@
+package org.infestedstudios.inv.config;
+
+import org.bukkit.event.inventory.InventoryType;
+import org.infestedstudios.inv.CompiledLayout;
+
+import java.util.Objects;
+
+/**
+ * Immutable menu compiled from a menu file: its inventory shape, its title and a layout
+ * defining every slot.
+ * <p>
+ * A definition is compiled once per version of its file and shared by every menu created from it.
+ */
+public final class MenuDefinition {
+
+    private final String id;
+    private final InventoryType type;
+    private final int size;
+    private final String title;
+    private final CompiledLayout layout;
+
+    MenuDefinition(String id, InventoryType type, int size, String title, CompiledLayout layout) {
+        this.id = id;
+        this.type = type;
+        this.size = size;
+        this.title = title;
+        this.layout = layout;
+    }
+
+    /**
+     * Get the id of this menu, the name of its file without extension.
+     *
+     * @return the menu id
+     */
+    public String getId() {
+        return this.id;
+    }
+
+    public InventoryType getType() {
+        return this.type;
+    }
+
+    public int getSize() {
+        return this.size;
+    }
+
+    public String getTitle() {
+        return this.title;
+    }
+
+    /**
+     * Get the compiled layout of this menu. Every slot of the menu is defined by the layout,
+     * so applying it replaces the whole content of the menu.
+     *
+     * @return the layout
+     */
+    public CompiledLayout getLayout() {
+        return this.layout;
+    }
+
+    /**
+     * Check if a menu created from another definition can be updated in place with this definition:
+     * the type, size and title cannot be changed on an existing inventory.
+     *
+     * @param other the other definition
+     * @return true if both definitions have the same inventory type, size and title
+     */
+    public boolean hasSameShape(MenuDefinition other) {
+        return this.type == other.type && this.size == other.size && Objects.equals(this.title, other.title);
+    }
+
+    @Override
+    public String toString() {
+        return "MenuDefinition{" + this.id + ", " + this.type + ", " + this.size + "}";
+    }
+}
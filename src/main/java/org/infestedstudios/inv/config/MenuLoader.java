@@ -0,0 +1,431 @@
+package org.infestedstudios.inv.config;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.infestedstudios.inv.manager.InfestedInvManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * Loads the menus defined in the YAML files of a directory, one menu per {@code .yml} file.
+ * <p>
+ * A menu file looks like this:
+ * <pre>
+ * title: "&amp;6Shop"
+ * size: 27            # or type: HOPPER
+ * masks:
+ *   - "#########"
+ *   - "#  a b  #"
+ *   - "####x####"
+ * items:
+ *   '#':
+ *     material: BLACK_STAINED_GLASS_PANE
+ *     name: " "
+ *   a:
+ *     material: DIAMOND
+ *     name: "&amp;bDiamonds"
+ *     lore: ["&amp;7Click to buy"]
+ *     action: "buy diamond"
+ *   x:
+ *     material: BARRIER
+ *     name: "&amp;cClose"
+ *     action: close
+ * </pre>
+ * Each mask line is a row of the inventory, where each character is bound to an item of the
+ * {@code items} section; unbound characters are empty slots. Items also accept {@code amount},
+ * {@code enchantments}, {@code flags}, {@code color} and {@code model-data}. The {@code close},
+ * {@code open <menu>}, {@code back} and {@code command <command>} actions are built in, other
+ * actions are registered with {@link #registerAction(String, MenuAction)} before loading.
+ * <p>
+ * Files are read and compiled off the main thread, into {@link MenuDefinition}s cached until their
+ * file changes. Loads run one at a time, in the order they were requested, so a slow load cannot
+ * swap in a file older than the one read by a later load. The new definitions of a load are then
+ * swapped in on the main thread, in a single task:
+ * the menus being viewed are updated in place, or their viewers are moved to a new menu when the
+ * inventory type, size or title changed. A file which fails to compile is reported and its
+ * previous definition is kept.
+ */
+public final class MenuLoader {
+
+    // Editors often save a file with several writes, which are reloaded together
+    private static final long WATCH_DEBOUNCE_MILLIS = 100;
+
+    private final Map<String, MenuDefinition> definitions = new ConcurrentHashMap<>();
+    private final Map<String, MenuAction> actions = new ConcurrentHashMap<>();
+    private final MenuCompiler compiler = new MenuCompiler(this.actions::get);
+    // Checksums of the last loaded files, ahead of the definitions until the loads are swapped in.
+    // Only used by the load being run.
+    private final Map<String, Long> checksums = new HashMap<>();
+    private final Queue<Runnable> loads = new ArrayDeque<>();
+    private boolean loading;
+
+    private final Plugin plugin;
+    private final Path directory;
+
+    private WatchService watchService;
+    private Thread watcher;
+
+    /**
+     * Create a loader for the menu files of a directory. Nothing is loaded until {@link #loadAll()} is called.
+     *
+     * @param plugin    the plugin running the load tasks
+     * @param directory the directory of the menu files
+     */
+    public MenuLoader(Plugin plugin, Path directory) {
+        this.plugin = Objects.requireNonNull(plugin, "plugin");
+        this.directory = Objects.requireNonNull(directory, "directory");
+
+        registerAction("close", (e, argument) -> e.getWhoClicked().closeInventory());
+        registerAction("open", (e, argument) -> open(argument, (Player) e.getWhoClicked()));
+        registerAction("back", (e, argument) -> InfestedInvManager.getSession((Player) e.getWhoClicked()).back());
+        registerAction("command", (e, argument) -> ((Player) e.getWhoClicked()).performCommand(argument));
+    }
+
+    /**
+     * Register an action which can be bound to items by name. Actions are resolved when a file is
+     * compiled, so they must be registered before the files using them are loaded.
+     *
+     * @param name   the action name, case insensitive
+     * @param action the action
+     * @return this loader
+     */
+    public MenuLoader registerAction(String name, MenuAction action) {
+        Objects.requireNonNull(name, "name");
+        this.actions.put(name.toLowerCase(Locale.ROOT), Objects.requireNonNull(action, "action"));
+        return this;
+    }
+
+    /**
+     * Load every menu file of the directory off the main thread. Files which did not change since
+     * they were last loaded are skipped, and the menus whose file was deleted are removed.
+     *
+     * @return a future completed on the main thread once the new definitions are swapped in,
+     * with the ids of the menus loaded again or removed
+     */
+    public CompletableFuture<Set<String>> loadAll() {
+        CompletableFuture<Set<String>> future = new CompletableFuture<>();
+
+        runSerially(() -> {
+            try {
+                List<Path> files = listMenuFiles();
+                Set<String> removed = new HashSet<>(this.checksums.keySet());
+                files.forEach(file -> removed.remove(idOf(file)));
+
+                Map<String, MenuDefinition> compiled = compile(files);
+                removed.forEach(this.checksums::remove);
+                swapLater(compiled, removed, future);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Get the definition of a menu.
+     *
+     * @param id the menu id, the name of its file without extension
+     * @return the definition, or null if there is no such menu
+     */
+    public MenuDefinition get(String id) {
+        return this.definitions.get(id);
+    }
+
+    /**
+     * Get the ids of the loaded menus.
+     *
+     * @return an unmodifiable view of the menu ids
+     */
+    public Set<String> getIds() {
+        return Collections.unmodifiableSet(this.definitions.keySet());
+    }
+
+    /**
+     * Create a menu from its definition.
+     *
+     * @param id the menu id
+     * @return the new menu
+     * @throws IllegalArgumentException if there is no such menu
+     */
+    public ConfigMenu create(String id) {
+        MenuDefinition definition = this.definitions.get(id);
+
+        if (definition == null) {
+            throw new IllegalArgumentException("Unknown menu " + id);
+        }
+        return new ConfigMenu(this, definition);
+    }
+
+    /**
+     * Create a menu and open it in the navigation session of a player.
+     *
+     * @param id     the menu id
+     * @param player the player
+     * @throws IllegalArgumentException if there is no such menu
+     */
+    public void open(String id, Player player) {
+        InfestedInvManager.getSession(player).open(create(id));
+    }
+
+    /**
+     * Start watching the directory, reloading the menu files when they are created, modified or deleted.
+     * Only the changed files are compiled again. The directory is created if it does not exist.
+     *
+     * @throws IOException if the directory cannot be watched
+     */
+    public synchronized void startWatching() throws IOException {
+        if (this.watcher != null) {
+            return;
+        }
+
+        Files.createDirectories(this.directory);
+        WatchService service = this.directory.getFileSystem().newWatchService();
+        this.directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+
+        Thread thread = new Thread(() -> watch(service), "InfestedInv Menu Watcher");
+        thread.setDaemon(true);
+        this.watchService = service;
+        this.watcher = thread;
+        thread.start();
+    }
+
+    /**
+     * Stop watching the directory. This must be called when the plugin is disabled.
+     */
+    public synchronized void stopWatching() {
+        if (this.watcher == null) {
+            return;
+        }
+
+        try {
+            this.watchService.close();
+        } catch (IOException e) {
+            this.plugin.getLogger().log(Level.WARNING, "Could not close the menu file watcher", e);
+        }
+        this.watcher.interrupt();
+        this.watcher = null;
+        this.watchService = null;
+    }
+
+    /**
+     * Check if the directory is being watched.
+     *
+     * @return true if the files are reloaded when they change
+     */
+    public synchronized boolean isWatching() {
+        return this.watcher != null;
+    }
+
+    private void watch(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Set<Path> changed = new LinkedHashSet<>();
+                boolean overflow = false;
+
+                do {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            overflow = true;
+                        } else if (event.context() instanceof Path && isMenuFile((Path) event.context())) {
+                            changed.add(this.directory.resolve((Path) event.context()));
+                        }
+                    }
+                    key.reset();
+                } while ((key = service.poll(WATCH_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null);
+
+                if (overflow) {
+                    // Some events were lost, so every file is checked again
+                    loadAll();
+                } else if (!changed.isEmpty()) {
+                    runSerially(() -> reload(changed));
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // The watcher was stopped
+        } catch (Throwable t) {
+            this.plugin.getLogger().log(Level.SEVERE, "The menu file watcher stopped", t);
+        }
+    }
+
+    private void reload(Collection<Path> files) {
+        List<Path> existing = new ArrayList<>();
+        Set<String> removed = new HashSet<>();
+
+        for (Path file : files) {
+            if (Files.isRegularFile(file)) {
+                existing.add(file);
+            } else if (this.checksums.remove(idOf(file)) != null) {
+                removed.add(idOf(file));
+            }
+        }
+
+        try {
+            swapLater(compile(existing), removed, new CompletableFuture<>());
+        } catch (Throwable t) {
+            this.plugin.getLogger().log(Level.SEVERE, "Could not reload the menu files " + files, t);
+        }
+    }
+
+    private void runSerially(Runnable load) {
+        synchronized (this.loads) {
+            this.loads.add(load);
+
+            if (this.loading) {
+                return;
+            }
+            this.loading = true;
+        }
+
+        try {
+            Bukkit.getScheduler().runTaskAsynchronously(this.plugin, this::runLoads);
+        } catch (RuntimeException e) {
+            synchronized (this.loads) {
+                this.loads.clear();
+                this.loading = false;
+            }
+            throw e;
+        }
+    }
+
+    private void runLoads() {
+        while (true) {
+            Runnable load;
+
+            synchronized (this.loads) {
+                load = this.loads.poll();
+
+                if (load == null) {
+                    this.loading = false;
+                    return;
+                }
+            }
+            load.run();
+        }
+    }
+
+    private Map<String, MenuDefinition> compile(Collection<Path> files) {
+        Map<String, MenuDefinition> compiled = new HashMap<>();
+
+        for (Path file : files) {
+            String id = idOf(file);
+
+            try {
+                byte[] content = Files.readAllBytes(file);
+                CRC32 crc = new CRC32();
+                crc.update(content);
+                long checksum = crc.getValue();
+
+                Long current = this.checksums.get(id);
+                if (current != null && current == checksum) {
+                    continue;
+                }
+
+                compiled.put(id, this.compiler.compile(id, new String(content, StandardCharsets.UTF_8)));
+                this.checksums.put(id, checksum);
+            } catch (IOException e) {
+                this.plugin.getLogger().warning("Could not read menu file " + file + ": " + e.getMessage());
+            } catch (IllegalArgumentException e) {
+                this.plugin.getLogger().warning("Could not load menu " + id + ": " + e.getMessage());
+            }
+        }
+        return compiled;
+    }
+
+    private void swapLater(Map<String, MenuDefinition> compiled, Set<String> removed, CompletableFuture<Set<String>> future) {
+        if (!this.plugin.isEnabled()) {
+            future.cancel(false);
+            return;
+        }
+
+        Bukkit.getScheduler().runTask(this.plugin, () -> {
+            try {
+                swap(compiled, removed);
+
+                Set<String> ids = new HashSet<>(compiled.keySet());
+                ids.addAll(removed);
+                future.complete(ids);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+    }
+
+    private void swap(Map<String, MenuDefinition> compiled, Set<String> removed) {
+        this.definitions.putAll(compiled);
+        removed.forEach(this.definitions::remove);
+
+        if (compiled.isEmpty()) {
+            return;
+        }
+
+        // Viewers of a removed menu keep it open, it is only unavailable for new menus
+        for (ConfigMenu menu : InfestedInvManager.getViewers().getViewedMenus(ConfigMenu.class)) {
+            MenuDefinition latest = menu.getLoader() == this ? compiled.get(menu.getMenuId()) : null;
+
+            if (latest != null && !menu.update(latest)) {
+                ConfigMenu replacement = new ConfigMenu(this, latest);
+
+                for (Player viewer : new ArrayList<>(InfestedInvManager.getViewers().getViewers(menu))) {
+                    replacement.open(viewer);
+                }
+            }
+        }
+    }
+
+    private List<Path> listMenuFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+
+        if (!Files.isDirectory(this.directory)) {
+            return files;
+        }
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory)) {
+            for (Path file : stream) {
+                if (isMenuFile(file) && Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        return files;
+    }
+
+    private static boolean isMenuFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".yml") || name.endsWith(".yaml");
+    }
+
+    private static String idOf(Path file) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.lastIndexOf('.'));
+    }
+}
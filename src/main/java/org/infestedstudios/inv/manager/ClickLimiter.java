@@ -0,0 +1,123 @@
+package org.infestedstudios.inv.manager;
+
+import org.infestedstudios.inv.ClickLimit;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-player click limiter applying the {@link ClickLimit} of menus.
+ * <p>
+ * Each player has a small state with primitive fields only: the token bucket level, the last
+ * refill time and the last clicked slot. States are created on the first limited click and
+ * removed when the player quits. Must only be used from the main thread, except the counters.
+ */
+public final class ClickLimiter {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000D;
+
+    private final Map<UUID, State> states = new HashMap<>();
+    private final AtomicLong rateLimitedClicks = new AtomicLong();
+    private final AtomicLong debouncedClicks = new AtomicLong();
+
+    ClickLimiter() {
+    }
+
+    /**
+     * Try to accept a click.
+     *
+     * @param player The player clicking.
+     * @param slot   The clicked raw slot.
+     * @param limit  The limit of the clicked menu.
+     * @return true if the click is accepted, false if it must be cancelled.
+     */
+    boolean tryClick(UUID player, int slot, ClickLimit limit) {
+        long now = System.nanoTime();
+        State state = this.states.get(player);
+
+        if (state == null) {
+            state = new State(limit.getBurst(), now);
+            this.states.put(player, state);
+        }
+
+        if (limit.getDebounceNanos() > 0 && slot == state.lastSlot
+                && now - state.lastSlotTime < limit.getDebounceNanos()) {
+            this.debouncedClicks.incrementAndGet();
+            return false;
+        }
+
+        double tokens = state.tokens + (now - state.lastRefill) * limit.getClicksPerSecond() / NANOS_PER_SECOND;
+        state.tokens = Math.min(tokens, limit.getBurst());
+        state.lastRefill = now;
+
+        if (state.tokens < 1) {
+            this.rateLimitedClicks.incrementAndGet();
+            return false;
+        }
+
+        state.tokens -= 1;
+        state.lastSlot = slot;
+        state.lastSlotTime = now;
+        return true;
+    }
+
+    /**
+     * Remove the state of a player.
+     *
+     * @param player The player unique id.
+     */
+    void remove(UUID player) {
+        this.states.remove(player);
+    }
+
+    /**
+     * Get the number of clicks rejected because the player exceeded the click rate.
+     *
+     * @return The number of rate limited clicks.
+     */
+    public long getRateLimitedClicks() {
+        return this.rateLimitedClicks.get();
+    }
+
+    /**
+     * Get the number of clicks rejected because the same slot was clicked too quickly.
+     *
+     * @return The number of debounced clicks.
+     */
+    public long getDebouncedClicks() {
+        return this.debouncedClicks.get();
+    }
+
+    /**
+     * Get the total number of rejected clicks.
+     *
+     * @return The number of rejected clicks.
+     */
+    public long getRejectedClicks() {
+        return getRateLimitedClicks() + getDebouncedClicks();
+    }
+
+    /**
+     * Get the number of players with a limiter state.
+     *
+     * @return The number of tracked players.
+     */
+    public int getTrackedPlayers() {
+        return this.states.size();
+    }
+
+    private static final class State {
+
+        private double tokens;
+        private long lastRefill;
+        private int lastSlot = -1;
+        private long lastSlotTime;
+
+        private State(double tokens, long now) {
+            this.tokens = tokens;
+            this.lastRefill = now;
+        }
+    }
+}
@@ -2,17 +2,30 @@ package org.infestedstudios.inv.manager;
 
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.inventory.InventoryOpenEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.server.PluginDisableEvent;
 import org.bukkit.plugin.Plugin;
+import org.infestedstudios.inv.ClickLimit;
 import org.infestedstudios.inv.InfestedInv;
+import org.infestedstudios.inv.SharedInfestedInv;
+import org.infestedstudios.inv.metrics.MenuMetrics;
 
+import java.lang.reflect.InvocationTargetException;
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Manager for InfestedInv listeners.
@@ -21,12 +34,25 @@ public final class InfestedInvManager {
 
     private static final AtomicBoolean REGISTERED = new AtomicBoolean(false);
 
+    private static final ClickLimiter CLICK_LIMITER = new ClickLimiter();
+
+    private static final MenuSessions SESSIONS = new MenuSessions();
+
+    private static final ViewerTracker VIEWERS = new ViewerTracker();
+
+    private static MenuTicker ticker;
+    private static Executor asyncExecutor;
+    private static ExecutorService defaultAsyncExecutor;
+
     private InfestedInvManager() {
         throw new UnsupportedOperationException();
     }
 
     /**
      * Register listeners for InfestedInv.
+     * <p>
+     * When other plugins shading InfestedInv are loaded, a single listener is shared by all of them:
+     * the first plugin to register owns it, and the menus of the next plugins are routed through it.
      *
      * @param plugin plugin to register
      * @throws NullPointerException if plugin is null
@@ -39,16 +65,170 @@ public final class InfestedInvManager {
             throw new IllegalStateException("InfestedInv is already registered");
         }
 
-        Bukkit.getPluginManager().registerEvents(new InventoryListener(plugin), plugin);
+        SharedDispatcher.join(plugin, new InventoryListener(plugin));
+        getTicker(plugin);
+    }
+
+    /**
+     * Get the plugin owning the listener which dispatches the events of the menus of this plugin.
+     * It is the registering plugin unless another plugin shading InfestedInv registered first.
+     *
+     * @return the dispatcher plugin, or null if InfestedInv is not registered
+     */
+    public static Plugin getDispatcherPlugin() {
+        return SharedDispatcher.getDispatcherPlugin();
+    }
+
+    /**
+     * Get the ticker running the update tasks of every menu.
+     * The ticker is started with the given plugin if it is not running yet.
+     *
+     * @param plugin plugin owning the ticker if it needs to be started
+     * @return the menu ticker
+     */
+    public static MenuTicker getTicker(Plugin plugin) {
+        Objects.requireNonNull(plugin, "plugin");
+
+        if (ticker == null) {
+            ticker = new MenuTicker(plugin);
+            ticker.start();
+        }
+        return ticker;
+    }
+
+    /**
+     * Get the running ticker, started by {@link #register(Plugin)} or by the first menu update task.
+     *
+     * @return the menu ticker
+     * @throws IllegalStateException if the ticker is not running
+     */
+    public static MenuTicker getTicker() {
+        if (ticker == null) {
+            throw new IllegalStateException("InfestedInv is not registered");
+        }
+        return ticker;
+    }
+
+    /**
+     * Get the executor running the body of asynchronous click handlers.
+     * Unless another executor was set, a default executor is created on first use: it uses
+     * virtual threads when the runtime supports them, and a fixed pool of daemon threads otherwise.
+     *
+     * @return the async click executor
+     */
+    public static Executor getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            defaultAsyncExecutor = createDefaultAsyncExecutor();
+            asyncExecutor = defaultAsyncExecutor;
+        }
+        return asyncExecutor;
+    }
+
+    /**
+     * Set the executor running the body of asynchronous click handlers.
+     * The executor is not shut down by InfestedInv.
+     *
+     * @param executor executor to use, or null to use the default executor
+     */
+    public static void setAsyncExecutor(Executor executor) {
+        shutdownDefaultAsyncExecutor();
+        asyncExecutor = executor;
+    }
+
+    /**
+     * Get the limiter applying the click limits of menus, with its rejected click counters.
+     *
+     * @return the click limiter
+     */
+    public static ClickLimiter getClickLimiter() {
+        return CLICK_LIMITER;
+    }
+
+    /**
+     * Get the navigation sessions of the online players, with their limits.
+     *
+     * @return the menu sessions
+     */
+    public static MenuSessions getSessions() {
+        return SESSIONS;
+    }
+
+    /**
+     * Get the navigation session of a player, creating it if needed.
+     * The session is removed when the player quits.
+     *
+     * @param player the player
+     * @return the session of the player
+     */
+    public static MenuSession getSession(Player player) {
+        return SESSIONS.get(player);
+    }
+
+    private static void stopTicker() {
+        if (ticker != null) {
+            ticker.stop();
+            ticker = null;
+        }
+    }
+
+    private static ExecutorService createDefaultAsyncExecutor() {
+        try {
+            // Executors.newVirtualThreadPerTaskExecutor() is only available on recent runtimes
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            AtomicInteger threadCount = new AtomicInteger();
+            ThreadFactory threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, "InfestedInv Async Click Thread #" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), threadFactory);
+        }
+    }
+
+    private static void shutdownDefaultAsyncExecutor() {
+        if (defaultAsyncExecutor != null) {
+            defaultAsyncExecutor.shutdown();
+            defaultAsyncExecutor = null;
+            asyncExecutor = null;
+        }
+    }
+
+    /**
+     * Get the tracker of the players viewing menus.
+     *
+     * @return the viewer tracker
+     */
+    public static ViewerTracker getViewers() {
+        return VIEWERS;
     }
 
     /**
      * Close all open InfestedInv inventories.
+     * Only the players with a menu open are touched.
      */
     public static void closeAll() {
-        Bukkit.getOnlinePlayers().stream()
-                .filter(p -> p.getOpenInventory().getTopInventory().getHolder() instanceof InfestedInv)
-                .forEach(Player::closeInventory);
+        VIEWERS.closeAll();
+    }
+
+    /**
+     * Close the inventory of every player viewing a menu of a class, including subclasses.
+     *
+     * @param type the menu class
+     */
+    public static void closeAll(Class<? extends InfestedInv> type) {
+        VIEWERS.closeAll(type);
+    }
+
+    /**
+     * Refresh each viewed menu of a class, including subclasses, once.
+     *
+     * @param type      the menu class
+     * @param refresher the function refreshing a menu
+     * @param <T>       the menu type
+     */
+    public static <T extends InfestedInv> void refreshAll(Class<T> type, Consumer<? super T> refresher) {
+        VIEWERS.refreshAll(type, refresher);
     }
 
     public static final class InventoryListener implements Listener {
@@ -59,15 +239,81 @@ public final class InfestedInvManager {
             this.plugin = plugin;
         }
 
+        /**
+         * Handle an event passed by the shared dispatcher.
+         *
+         * @param event    the event
+         * @param priority the priority the event is dispatched at
+         * @return true if the event belongs to a menu of this listener and must not be passed further
+         */
+        boolean route(Event event, EventPriority priority) {
+            if (event instanceof InventoryClickEvent) {
+                InventoryClickEvent e = (InventoryClickEvent) event;
+
+                if (InfestedInv.of(e.getInventory()) == null) {
+                    return false;
+                }
+                onInventoryClick(e);
+                return true;
+            }
+
+            if (event instanceof InventoryOpenEvent) {
+                InventoryOpenEvent e = (InventoryOpenEvent) event;
+
+                if (InfestedInv.of(e.getInventory()) == null) {
+                    return false;
+                }
+                if (priority == EventPriority.MONITOR) {
+                    onInventoryOpened(e);
+                } else {
+                    onInventoryOpen(e);
+                }
+                return true;
+            }
+
+            if (event instanceof InventoryCloseEvent) {
+                InventoryCloseEvent e = (InventoryCloseEvent) event;
+
+                if (InfestedInv.of(e.getInventory()) == null) {
+                    return false;
+                }
+                onInventoryClose(e);
+                return true;
+            }
+
+            if (event instanceof PlayerQuitEvent) {
+                onPlayerQuit((PlayerQuitEvent) event);
+            } else if (event instanceof PluginDisableEvent) {
+                onPluginDisable((PluginDisableEvent) event);
+            }
+            return false;
+        }
+
         @EventHandler
         public void onInventoryClick(InventoryClickEvent e) {
-            if (e.getInventory().getHolder() instanceof InfestedInv && e.getClickedInventory() != null) {
-                InfestedInv inv = (InfestedInv) e.getInventory().getHolder();
+            InfestedInv inv = InfestedInv.of(e.getInventory());
+
+            if (inv != null && e.getClickedInventory() != null) {
+                ClickLimit limit = inv.getClickLimit();
+
+                if (limit != null && !CLICK_LIMITER.tryClick(e.getWhoClicked().getUniqueId(), e.getRawSlot(), limit)) {
+                    e.setCancelled(true);
+                    return;
+                }
 
                 boolean wasCancelled = e.isCancelled();
                 e.setCancelled(true);
 
-                inv.handleClick(e);
+                if (MenuMetrics.isEnabled()) {
+                    long start = System.nanoTime();
+                    try {
+                        inv.handleClick(e);
+                    } finally {
+                        inv.getStats().recordClick(e.getRawSlot(), e.getInventory().getSize(), System.nanoTime() - start);
+                    }
+                } else {
+                    inv.handleClick(e);
+                }
 
                 // This prevents un-canceling the event if another plugin canceled it before
                 if (!wasCancelled && !e.isCancelled()) {
@@ -78,28 +324,79 @@ public final class InfestedInvManager {
 
         @EventHandler
         public void onInventoryOpen(InventoryOpenEvent e) {
-            if (e.getInventory().getHolder() instanceof InfestedInv) {
-                InfestedInv inv = (InfestedInv) e.getInventory().getHolder();
+            InfestedInv inv = InfestedInv.of(e.getInventory());
 
+            if (inv == null) {
+                return;
+            }
+
+            if (MenuMetrics.isEnabled()) {
+                long start = System.nanoTime();
+                try {
+                    inv.handleOpen(e);
+                } finally {
+                    inv.getStats().recordOpen(System.nanoTime() - start);
+                }
+            } else {
                 inv.handleOpen(e);
             }
         }
 
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onInventoryOpened(InventoryOpenEvent e) {
+            InfestedInv inv = InfestedInv.of(e.getInventory());
+
+            if (inv != null && e.getPlayer() instanceof Player) {
+                VIEWERS.opened((Player) e.getPlayer(), inv);
+            }
+        }
+
         @EventHandler
         public void onInventoryClose(InventoryCloseEvent e) {
-            if (e.getInventory().getHolder() instanceof InfestedInv) {
-                InfestedInv inv = (InfestedInv) e.getInventory().getHolder();
+            if (e.getPlayer() instanceof Player) {
+                VIEWERS.closed((Player) e.getPlayer());
+            }
+
+            InfestedInv inv = InfestedInv.of(e.getInventory());
 
-                if (inv.handleClose(e)) {
-                    Bukkit.getScheduler().runTask(this.plugin, () -> inv.open((Player) e.getPlayer()));
+            if (inv == null) {
+                return;
+            }
+
+            boolean reopen;
+            if (MenuMetrics.isEnabled()) {
+                long start = System.nanoTime();
+                try {
+                    reopen = inv.handleClose(e);
+                } finally {
+                    inv.getStats().recordClose(System.nanoTime() - start);
                 }
+            } else {
+                reopen = inv.handleClose(e);
+            }
+
+            if (reopen) {
+                Bukkit.getScheduler().runTask(this.plugin, () -> inv.open((Player) e.getPlayer()));
             }
         }
 
+        @EventHandler
+        public void onPlayerQuit(PlayerQuitEvent e) {
+            CLICK_LIMITER.remove(e.getPlayer().getUniqueId());
+            SESSIONS.remove(e.getPlayer().getUniqueId());
+            VIEWERS.closed(e.getPlayer());
+            SharedInfestedInv.removeOverlays(e.getPlayer().getUniqueId());
+        }
+
         @EventHandler
         public void onPluginDisable(PluginDisableEvent e) {
             if (e.getPlugin() == this.plugin) {
                 closeAll();
+                stopTicker();
+                shutdownDefaultAsyncExecutor();
+                SESSIONS.clear();
+                VIEWERS.clear();
+                SharedDispatcher.leave();
 
                 REGISTERED.set(false);
             }
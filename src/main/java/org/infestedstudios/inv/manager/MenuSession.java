@@ -0,0 +1,158 @@
+package org.infestedstudios.inv.manager;
+
+import org.bukkit.entity.Player;
+import org.infestedstudios.inv.InfestedInv;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+
+/**
+ * Navigation history of a player through menus, keeping the menu instances so going back
+ * or forward reopens the already rendered inventory instead of building the menu again.
+ * <p>
+ * The back and forward stacks are bounded by the session depth of {@link MenuSessions}; the oldest
+ * menus are dropped first, and may also be dropped to respect the global limit of cached menus.
+ * Pooled menus are never kept, because they go back to their pool when closed.
+ * <p>
+ * Sessions are removed when their player quits. Must only be used from the main thread.
+ */
+public final class MenuSession {
+
+    private final MenuSessions sessions;
+    private final Player player;
+
+    // The most recent menus are at the head of the stacks
+    private final ArrayDeque<InfestedInv> back = new ArrayDeque<>();
+    private final ArrayDeque<InfestedInv> forward = new ArrayDeque<>();
+
+    private InfestedInv current;
+
+    MenuSession(MenuSessions sessions, Player player) {
+        this.sessions = sessions;
+        this.player = player;
+    }
+
+    /**
+     * Open a menu, pushing the current menu on the back stack and clearing the forward stack.
+     *
+     * @param menu menu to open
+     */
+    public void open(InfestedInv menu) {
+        Objects.requireNonNull(menu, "menu");
+
+        if (menu != this.current) {
+            int removed = this.forward.size();
+            this.forward.clear();
+            this.sessions.changed(this, -removed);
+            push(this.back, this.current);
+            this.current = menu;
+        }
+        menu.open(this.player);
+    }
+
+    /**
+     * Reopen the previous menu, pushing the current menu on the forward stack.
+     *
+     * @return true if a previous menu was opened, false if the back stack is empty
+     */
+    public boolean back() {
+        return move(this.back, this.forward);
+    }
+
+    /**
+     * Reopen the menu left with {@link #back()}, pushing the current menu on the back stack.
+     *
+     * @return true if a menu was opened, false if the forward stack is empty
+     */
+    public boolean forward() {
+        return move(this.forward, this.back);
+    }
+
+    /**
+     * Get the menu last opened through this session.
+     *
+     * @return the current menu, or null if no menu was opened
+     */
+    public InfestedInv getCurrent() {
+        return this.current;
+    }
+
+    public Player getPlayer() {
+        return this.player;
+    }
+
+    public boolean canGoBack() {
+        return !this.back.isEmpty();
+    }
+
+    public boolean canGoForward() {
+        return !this.forward.isEmpty();
+    }
+
+    public int getBackDepth() {
+        return this.back.size();
+    }
+
+    public int getForwardDepth() {
+        return this.forward.size();
+    }
+
+    /**
+     * Forget every menu of this session, without closing the open inventory.
+     */
+    public void clear() {
+        int removed = this.back.size() + this.forward.size();
+        this.back.clear();
+        this.forward.clear();
+        this.current = null;
+        this.sessions.changed(this, -removed);
+    }
+
+    /**
+     * Drop the oldest cached menus, from the back stack first.
+     *
+     * @param count maximum number of menus to drop
+     * @return the number of dropped menus
+     */
+    int trim(int count) {
+        int removed = 0;
+        while (removed < count && this.back.pollLast() != null) {
+            removed++;
+        }
+        while (removed < count && this.forward.pollLast() != null) {
+            removed++;
+        }
+        return removed;
+    }
+
+    int getCachedMenuCount() {
+        return this.back.size() + this.forward.size();
+    }
+
+    private boolean move(ArrayDeque<InfestedInv> from, ArrayDeque<InfestedInv> to) {
+        InfestedInv menu = from.poll();
+        if (menu == null) {
+            return false;
+        }
+
+        this.sessions.changed(this, -1);
+        push(to, this.current);
+        this.current = menu;
+        menu.open(this.player);
+        return true;
+    }
+
+    private void push(ArrayDeque<InfestedInv> stack, InfestedInv menu) {
+        if (menu == null || menu.isPooled()) {
+            return;
+        }
+
+        stack.push(menu);
+        int removed = 0;
+        while (stack.size() > this.sessions.getMaxDepth()) {
+            stack.removeLast();
+            removed++;
+        }
+        this.sessions.changed(this, 1 - removed);
+    }
+}
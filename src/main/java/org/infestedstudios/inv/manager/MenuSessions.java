@@ -0,0 +1,114 @@
+package org.infestedstudios.inv.manager;
+
+import org.bukkit.entity.Player;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Navigation sessions of the online players.
+ * <p>
+ * Each session keeps at most {@code maxDepth} menus in each of its stacks, and all the sessions
+ * together keep at most {@code maxCachedMenus} menus. When the global limit is exceeded, the oldest
+ * menus of the least recently used sessions are dropped first. Must only be used from the main thread.
+ */
+public final class MenuSessions {
+
+    private static final int DEFAULT_MAX_DEPTH = 16;
+    private static final int DEFAULT_MAX_CACHED_MENUS = 2048;
+
+    private final Map<UUID, MenuSession> sessions = new LinkedHashMap<>(16, 0.75F, true);
+
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    private int maxCachedMenus = DEFAULT_MAX_CACHED_MENUS;
+    private int cachedMenus;
+
+    MenuSessions() {
+    }
+
+    /**
+     * Get the session of a player, creating it if needed.
+     *
+     * @param player the player
+     * @return the session of the player
+     */
+    public MenuSession get(Player player) {
+        Objects.requireNonNull(player, "player");
+        return this.sessions.computeIfAbsent(player.getUniqueId(), id -> new MenuSession(this, player));
+    }
+
+    /**
+     * Set the limits of the sessions. Current sessions are trimmed the next time they change.
+     *
+     * @param maxDepth       maximum number of menus in each stack of a session
+     * @param maxCachedMenus maximum number of menus kept by all the sessions
+     */
+    public void setLimits(int maxDepth, int maxCachedMenus) {
+        if (maxDepth < 0 || maxCachedMenus < 0) {
+            throw new IllegalArgumentException("Session limits must not be negative");
+        }
+        this.maxDepth = maxDepth;
+        this.maxCachedMenus = maxCachedMenus;
+    }
+
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    public int getMaxCachedMenus() {
+        return this.maxCachedMenus;
+    }
+
+    /**
+     * Get the number of menus kept by all the sessions.
+     *
+     * @return the cached menu count
+     */
+    public int getCachedMenuCount() {
+        return this.cachedMenus;
+    }
+
+    public int getSessionCount() {
+        return this.sessions.size();
+    }
+
+    void remove(UUID player) {
+        MenuSession session = this.sessions.remove(player);
+        if (session != null) {
+            this.cachedMenus -= session.getCachedMenuCount();
+        }
+    }
+
+    void clear() {
+        this.sessions.clear();
+        this.cachedMenus = 0;
+    }
+
+    void changed(MenuSession session, int delta) {
+        // Also marks the session as recently used. A session removed when its player quit can still
+        // be used through a reference, but its menus are not counted anymore.
+        if (this.sessions.get(session.getPlayer().getUniqueId()) != session) {
+            return;
+        }
+        this.cachedMenus += delta;
+
+        if (this.cachedMenus <= this.maxCachedMenus) {
+            return;
+        }
+
+        // Iteration order is least recently used first; the changed session is trimmed last
+        Iterator<MenuSession> it = this.sessions.values().iterator();
+        while (this.cachedMenus > this.maxCachedMenus && it.hasNext()) {
+            MenuSession eldest = it.next();
+            if (eldest != session) {
+                this.cachedMenus -= eldest.trim(this.cachedMenus - this.maxCachedMenus);
+            }
+        }
+        if (this.cachedMenus > this.maxCachedMenus) {
+            this.cachedMenus -= session.trim(this.cachedMenus - this.maxCachedMenus);
+        }
+    }
+}
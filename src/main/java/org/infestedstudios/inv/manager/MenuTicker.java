@@ -0,0 +1,238 @@
+package org.infestedstudios.inv.manager;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Single scheduler task running the update tasks of every menu.
+ * <p>
+ * Tasks are stored in a timing wheel of {@value #WHEEL_SIZE} buckets indexed by their next run tick.
+ * A new task starts in the least loaded bucket within its period, so many menus sharing the same
+ * period are spread over different ticks. Each tick runs the due tasks until the tick time budget
+ * is spent; the remaining tasks are carried over and run first on the next tick.
+ * <p>
+ * The ticker must only be used from the main thread, except {@link #runNextTick(Runnable)} which
+ * queues one-shot tasks from any thread, run at the start of the next tick before the menu tasks.
+ */
+public final class MenuTicker implements Runnable {
+
+    private static final int WHEEL_SIZE = 256;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private static final long DEFAULT_TICK_BUDGET = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final List<List<Task>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private final ArrayDeque<Task> pending = new ArrayDeque<>();
+    private final Queue<Runnable> nextTickTasks = new ConcurrentLinkedQueue<>();
+
+    private final Plugin plugin;
+
+    private long tickBudget = DEFAULT_TICK_BUDGET;
+    private long currentTick;
+    private int taskId = -1;
+
+    MenuTicker(Plugin plugin) {
+        this.plugin = plugin;
+
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            this.wheel.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Start running this ticker every tick.
+     */
+    void start() {
+        if (this.taskId == -1) {
+            this.taskId = Bukkit.getScheduler().runTaskTimer(this.plugin, this, 1L, 1L).getTaskId();
+        }
+    }
+
+    /**
+     * Stop this ticker and cancel every registered task.
+     */
+    void stop() {
+        if (this.taskId != -1) {
+            Bukkit.getScheduler().cancelTask(this.taskId);
+            this.taskId = -1;
+        }
+
+        for (List<Task> bucket : this.wheel) {
+            bucket.forEach(Task::cancel);
+            bucket.clear();
+        }
+        this.pending.forEach(Task::cancel);
+        this.pending.clear();
+        this.nextTickTasks.clear();
+    }
+
+    /**
+     * Set the maximum time spent running menu tasks on a single tick.
+     * At least one due task is always run per tick.
+     *
+     * @param budget The time budget.
+     * @param unit   The time unit of the budget.
+     */
+    public void setTickBudget(long budget, TimeUnit unit) {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("budget must be positive: " + budget);
+        }
+        this.tickBudget = unit.toNanos(budget);
+    }
+
+    /**
+     * Get the number of due tasks carried over to the next tick because the budget was spent.
+     *
+     * @return The number of carried over tasks.
+     */
+    public int getBacklog() {
+        return this.pending.size();
+    }
+
+    /**
+     * Queue a task to run once on the main thread, at the start of the next tick.
+     * This method can be called from any thread. Queued tasks are not limited by the tick budget.
+     *
+     * @param runnable The task to run.
+     */
+    public void runNextTick(Runnable runnable) {
+        this.nextTickTasks.add(Objects.requireNonNull(runnable, "runnable"));
+    }
+
+    /**
+     * Schedule a repeating task.
+     *
+     * @param runnable The task to run.
+     * @param period   The period of the task, in ticks.
+     * @return The scheduled task.
+     */
+    public Task schedule(Runnable runnable, long period) {
+        Objects.requireNonNull(runnable, "runnable");
+        if (period <= 0) {
+            throw new IllegalArgumentException("period must be positive: " + period);
+        }
+
+        Task task = new Task(runnable, period);
+
+        // Start in the least loaded of the next ticks within the period
+        long bestTick = this.currentTick + 1;
+        int bestLoad = Integer.MAX_VALUE;
+        long spread = Math.min(period, WHEEL_SIZE);
+        for (long tick = this.currentTick + 1; tick <= this.currentTick + spread && bestLoad > 0; tick++) {
+            int load = this.wheel.get((int) (tick & WHEEL_MASK)).size();
+            if (load < bestLoad) {
+                bestLoad = load;
+                bestTick = tick;
+            }
+        }
+
+        schedule(task, bestTick);
+        return task;
+    }
+
+    @Override
+    public void run() {
+        long tick = ++this.currentTick;
+
+        Runnable nextTickTask;
+        while ((nextTickTask = this.nextTickTasks.poll()) != null) {
+            try {
+                nextTickTask.run();
+            } catch (Throwable t) {
+                this.plugin.getLogger().log(Level.WARNING, "Error while running a queued menu task", t);
+            }
+        }
+
+        List<Task> bucket = this.wheel.get((int) (tick & WHEEL_MASK));
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            Task task = bucket.get(i);
+
+            if (task.cancelled) {
+                continue;
+            }
+            if (task.nextTick <= tick) {
+                this.pending.add(task);
+            } else {
+                bucket.set(kept++, task);
+            }
+        }
+        bucket.subList(kept, bucket.size()).clear();
+
+        long deadline = System.nanoTime() + this.tickBudget;
+        boolean first = true;
+        Task task;
+        while ((first || System.nanoTime() < deadline) && (task = this.pending.poll()) != null) {
+            if (task.cancelled) {
+                continue;
+            }
+            first = false;
+
+            try {
+                task.runnable.run();
+            } catch (Throwable t) {
+                this.plugin.getLogger().log(Level.WARNING, "Error while running a menu update task", t);
+            }
+
+            if (!task.cancelled) {
+                schedule(task, tick + task.period);
+            }
+        }
+    }
+
+    private void schedule(Task task, long tick) {
+        task.nextTick = tick;
+        this.wheel.get((int) (tick & WHEEL_MASK)).add(task);
+    }
+
+    /**
+     * A repeating task registered in a {@link MenuTicker}.
+     */
+    public static final class Task {
+
+        private final Runnable runnable;
+        private final long period;
+
+        private long nextTick;
+        private boolean cancelled;
+
+        private Task(Runnable runnable, long period) {
+            this.runnable = runnable;
+            this.period = period;
+        }
+
+        /**
+         * Cancel this task. It is removed from the ticker the next time it is due.
+         */
+        public void cancel() {
+            this.cancelled = true;
+        }
+
+        /**
+         * Check if this task was cancelled.
+         *
+         * @return true if the task is cancelled.
+         */
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        /**
+         * Get the period of this task.
+         *
+         * @return The period, in ticks.
+         */
+        public long getPeriod() {
+            return this.period;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package org.infestedstudios.inv.manager;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryOpenEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.RegisteredServiceProvider;
+import org.bukkit.plugin.ServicePriority;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * Single event listener shared by every copy of InfestedInv loaded on the server.
+ * <p>
+ * Plugins shade and relocate the library, so each plugin has its own copy of these classes and
+ * the copies can only talk with JDK and Bukkit types. The first copy to register publishes a
+ * dispatcher in the {@link org.bukkit.plugin.ServicesManager}, as a {@link Function} service whose
+ * {@code toString()} is {@value #SERVICE_PREFIX} followed by the protocol version, and registers
+ * the only Bukkit listener. The next copies add a router to this dispatcher instead of registering
+ * their own listener.
+ * <p>
+ * Protocol version {@value #PROTOCOL_VERSION}: {@code apply(router)} takes a
+ * {@code BiPredicate<Event, EventPriority>} and returns a {@link Runnable} removing it. An event is
+ * passed to the routers in order until one of them returns true, meaning the menu of the event
+ * belongs to its copy. Player quit and plugin disable events are passed to every router.
+ * <p>
+ * When the plugin of the dispatcher is disabled, the dispatcher is unpublished first, then the
+ * other copies register again while handling the disable event, and the first of them publishes
+ * a new dispatcher. A copy finding a dispatcher with another protocol version registers its own
+ * listener, like without a shared dispatcher.
+ */
+final class SharedDispatcher {
+
+    static final int PROTOCOL_VERSION = 1;
+
+    private static final String SERVICE_PREFIX = "InfestedInvDispatcher/";
+
+    // Plugin of the dispatcher routing the events of this copy, and the action removing our router
+    private static Plugin dispatcherPlugin;
+    private static Runnable unregister;
+
+    private SharedDispatcher() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Route the events of a copy to the shared dispatcher, publishing it if there is none yet.
+     *
+     * @param plugin   the plugin registering this copy
+     * @param listener the listener handling the events of the menus of this copy
+     */
+    static void join(Plugin plugin, InfestedInvManager.InventoryListener listener) {
+        BiPredicate<Event, EventPriority> router = (event, priority) -> {
+            if (event instanceof PluginDisableEvent) {
+                Plugin disabled = ((PluginDisableEvent) event).getPlugin();
+
+                if (disabled == dispatcherPlugin && disabled != plugin) {
+                    unregister = null;
+                    join(plugin, listener);
+                }
+            }
+            return listener.route(event, priority);
+        };
+
+        RegisteredServiceProvider<?> registration = findDispatcher();
+
+        if (registration == null) {
+            Dispatcher dispatcher = new Dispatcher(plugin);
+            Bukkit.getServicesManager().register(Function.class, dispatcher, plugin, ServicePriority.Normal);
+            Bukkit.getPluginManager().registerEvents(dispatcher, plugin);
+            registration = findDispatcher();
+        }
+
+        String name = String.valueOf(registration.getProvider());
+        if (!name.equals(SERVICE_PREFIX + PROTOCOL_VERSION)) {
+            plugin.getLogger().warning("Found an incompatible InfestedInv dispatcher (" + name
+                    + ") registered by " + registration.getPlugin().getName() + ", using a separate listener");
+            dispatcherPlugin = plugin;
+            Bukkit.getPluginManager().registerEvents(listener, plugin);
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Function<Object, Object> dispatcher = (Function<Object, Object>) registration.getProvider();
+        dispatcherPlugin = registration.getPlugin();
+        unregister = (Runnable) dispatcher.apply(router);
+    }
+
+    /**
+     * Stop routing the events of this copy.
+     */
+    static void leave() {
+        if (unregister != null) {
+            unregister.run();
+            unregister = null;
+        }
+        dispatcherPlugin = null;
+    }
+
+    /**
+     * Get the plugin owning the listener that dispatches the events of this copy.
+     *
+     * @return the dispatcher plugin, or null if this copy is not registered
+     */
+    static Plugin getDispatcherPlugin() {
+        return dispatcherPlugin;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static RegisteredServiceProvider<?> findDispatcher() {
+        for (RegisteredServiceProvider<Function> registration : Bukkit.getServicesManager().getRegistrations(Function.class)) {
+            if (String.valueOf(registration.getProvider()).startsWith(SERVICE_PREFIX)) {
+                return registration;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The published dispatcher, only using JDK and Bukkit types in its contract.
+     */
+    static final class Dispatcher implements Function<Object, Object>, Listener {
+
+        private final List<BiPredicate<Event, EventPriority>> routers = new CopyOnWriteArrayList<>();
+        private final Plugin plugin;
+
+        private boolean closed;
+
+        Dispatcher(Plugin plugin) {
+            this.plugin = plugin;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object apply(Object router) {
+            BiPredicate<Event, EventPriority> predicate = (BiPredicate<Event, EventPriority>) router;
+            this.routers.add(predicate);
+            return (Runnable) () -> this.routers.remove(predicate);
+        }
+
+        @EventHandler
+        public void onInventoryClick(InventoryClickEvent e) {
+            dispatch(e, EventPriority.NORMAL);
+        }
+
+        @EventHandler
+        public void onInventoryOpen(InventoryOpenEvent e) {
+            dispatch(e, EventPriority.NORMAL);
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onInventoryOpened(InventoryOpenEvent e) {
+            dispatch(e, EventPriority.MONITOR);
+        }
+
+        @EventHandler
+        public void onInventoryClose(InventoryCloseEvent e) {
+            dispatch(e, EventPriority.NORMAL);
+        }
+
+        @EventHandler
+        public void onPlayerQuit(PlayerQuitEvent e) {
+            dispatch(e, EventPriority.NORMAL);
+        }
+
+        @EventHandler
+        public void onPluginDisable(PluginDisableEvent e) {
+            boolean disabled = e.getPlugin() == this.plugin;
+
+            if (disabled) {
+                // Unpublished before the other copies handle the event, so they do not join this dispatcher again
+                Bukkit.getServicesManager().unregister(Function.class, this);
+            }
+
+            dispatch(e, EventPriority.NORMAL);
+
+            if (disabled) {
+                this.closed = true;
+                this.routers.clear();
+            }
+        }
+
+        private void dispatch(Event event, EventPriority priority) {
+            if (this.closed) {
+                return;
+            }
+
+            for (BiPredicate<Event, EventPriority> router : this.routers) {
+                try {
+                    if (router.test(event, priority)) {
+                        return;
+                    }
+                } catch (Throwable t) {
+                    this.plugin.getLogger().log(Level.SEVERE, "Could not pass event " + event.getEventName() + " to a menu", t);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return SERVICE_PREFIX + PROTOCOL_VERSION;
+        }
+    }
+}
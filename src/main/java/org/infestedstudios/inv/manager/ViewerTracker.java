@@ -0,0 +1,170 @@
+package org.infestedstudios.inv.manager;
+
+import org.bukkit.entity.Player;
+import org.infestedstudios.inv.InfestedInv;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Tracks the players viewing a menu, updated from the open and close events.
+ * <p>
+ * Viewers are indexed by player, by menu and by menu class, so operations on the viewers of a menu
+ * or of a menu class only touch these viewers instead of every online player. Must only be used
+ * from the main thread.
+ */
+public final class ViewerTracker {
+
+    private final Map<UUID, InfestedInv> openMenus = new HashMap<>();
+    private final Map<InfestedInv, Set<Player>> viewers = new IdentityHashMap<>();
+    private final Map<Class<?>, Set<InfestedInv>> menusByClass = new HashMap<>();
+
+    ViewerTracker() {
+    }
+
+    /**
+     * Get the menu opened by a player.
+     *
+     * @param player the player
+     * @return the open menu, or null if the player has no menu open
+     */
+    public InfestedInv getOpenMenu(Player player) {
+        return this.openMenus.get(player.getUniqueId());
+    }
+
+    /**
+     * Get the players viewing a menu.
+     *
+     * @param menu the menu
+     * @return an unmodifiable view of the viewers
+     */
+    public Set<Player> getViewers(InfestedInv menu) {
+        Set<Player> menuViewers = this.viewers.get(menu);
+        return menuViewers != null ? Collections.unmodifiableSet(menuViewers) : Collections.emptySet();
+    }
+
+    /**
+     * Get the number of players with a menu open.
+     *
+     * @return the number of viewers of all the menus
+     */
+    public int getViewerCount() {
+        return this.openMenus.size();
+    }
+
+    /**
+     * Get the menus of a class, including subclasses, with at least one viewer.
+     *
+     * @param type the menu class
+     * @param <T>  the menu type
+     * @return the viewed menus of this class
+     */
+    public <T extends InfestedInv> List<T> getViewedMenus(Class<T> type) {
+        List<T> result = new ArrayList<>();
+        for (Map.Entry<Class<?>, Set<InfestedInv>> entry : this.menusByClass.entrySet()) {
+            if (type.isAssignableFrom(entry.getKey())) {
+                entry.getValue().forEach(menu -> result.add(type.cast(menu)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Run an action for each viewer of the menus of a class, including subclasses.
+     * The viewers are copied first, so the action can close or open inventories.
+     *
+     * @param type   the menu class
+     * @param action the action, called with each viewer and its menu
+     * @param <T>    the menu type
+     */
+    public <T extends InfestedInv> void forEachViewer(Class<T> type, BiConsumer<Player, ? super T> action) {
+        for (T menu : getViewedMenus(type)) {
+            for (Player player : new ArrayList<>(getViewers(menu))) {
+                action.accept(player, menu);
+            }
+        }
+    }
+
+    /**
+     * Refresh each viewed menu of a class, including subclasses, once.
+     *
+     * @param type      the menu class
+     * @param refresher the function refreshing a menu
+     * @param <T>       the menu type
+     */
+    public <T extends InfestedInv> void refreshAll(Class<T> type, Consumer<? super T> refresher) {
+        getViewedMenus(type).forEach(refresher);
+    }
+
+    /**
+     * Close the inventory of every player viewing a menu.
+     *
+     * @param menu the menu
+     */
+    public void closeAll(InfestedInv menu) {
+        new ArrayList<>(getViewers(menu)).forEach(Player::closeInventory);
+    }
+
+    /**
+     * Close the inventory of every player viewing a menu of a class, including subclasses.
+     *
+     * @param type the menu class
+     */
+    public void closeAll(Class<? extends InfestedInv> type) {
+        forEachViewer(type, (player, menu) -> player.closeInventory());
+    }
+
+    /**
+     * Close the inventory of every player viewing a menu.
+     */
+    public void closeAll() {
+        List<Player> players = new ArrayList<>(this.openMenus.size());
+        this.viewers.values().forEach(players::addAll);
+        players.forEach(Player::closeInventory);
+    }
+
+    void opened(Player player, InfestedInv menu) {
+        closed(player);
+
+        this.openMenus.put(player.getUniqueId(), menu);
+        Set<Player> menuViewers = this.viewers.get(menu);
+        if (menuViewers == null) {
+            menuViewers = new LinkedHashSet<>();
+            this.viewers.put(menu, menuViewers);
+            this.menusByClass.computeIfAbsent(menu.getClass(), k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(menu);
+        }
+        menuViewers.add(player);
+    }
+
+    void closed(Player player) {
+        InfestedInv menu = this.openMenus.remove(player.getUniqueId());
+        if (menu == null) {
+            return;
+        }
+
+        Set<Player> menuViewers = this.viewers.get(menu);
+        if (menuViewers != null && menuViewers.remove(player) && menuViewers.isEmpty()) {
+            this.viewers.remove(menu);
+
+            Set<InfestedInv> menus = this.menusByClass.get(menu.getClass());
+            if (menus != null && menus.remove(menu) && menus.isEmpty()) {
+                this.menusByClass.remove(menu.getClass());
+            }
+        }
+    }
+
+    void clear() {
+        this.openMenus.clear();
+        this.viewers.clear();
+        this.menusByClass.clear();
+    }
+}
@@ -0,0 +1,152 @@
+package org.infestedstudios.inv.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets.
+ * <p>
+ * Each power of two range is split into {@value #SUB_BUCKETS} linear buckets, and the values below
+ * {@value #SUB_BUCKETS} have a bucket each. Recording a value is a few atomic increments, without
+ * allocation. Percentiles are approximated by the upper bound of the bucket containing them, capped
+ * by the max latency, so they are at most 1/{@value #SUB_BUCKETS} above the real value.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // One linear range for the small values, then one per power of two up to the largest long
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a latency.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0L);
+
+        this.buckets.incrementAndGet(bucketOf(value));
+        this.count.incrementAndGet();
+        this.total.addAndGet(value);
+
+        long currentMax;
+        while (value > (currentMax = this.max.get()) && !this.max.compareAndSet(currentMax, value)) {
+            // retry until the max is updated or a larger value was recorded
+        }
+    }
+
+    /**
+     * Get the number of recorded latencies.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * Get the sum of the recorded latencies.
+     *
+     * @return the total latency in nanoseconds
+     */
+    public long getTotalNanos() {
+        return this.total.get();
+    }
+
+    /**
+     * Get the mean recorded latency.
+     *
+     * @return the mean latency in nanoseconds, or 0 if nothing was recorded
+     */
+    public double getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getTotalNanos() / count;
+    }
+
+    /**
+     * Get the maximum recorded latency.
+     *
+     * @return the max latency in nanoseconds
+     */
+    public long getMaxNanos() {
+        return this.max.get();
+    }
+
+    /**
+     * Get an approximation of a percentile of the recorded latencies.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the upper bound of the bucket containing the percentile, or the max latency
+     * if it is lower, in nanoseconds
+     */
+    public long getPercentileNanos(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(count * Math.min(Math.max(percentile, 0), 100) / 100D);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.buckets.get(i);
+            if (seen >= rank && seen > 0) {
+                return Math.min(upperBoundOf(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Get the number of latencies recorded in each bucket. The first {@value #SUB_BUCKETS} buckets
+     * contain a single latency each, from 0 nanoseconds. Then each group of {@value #SUB_BUCKETS}
+     * buckets splits the next power of two range in equal parts: the buckets {@code 16 * g} to
+     * {@code 16 * g + 15} contain the latencies between {@code 2^(g + 3)} and {@code 2^(g + 4) - 1}
+     * nanoseconds.
+     *
+     * @return a copy of the bucket counts
+     */
+    public long[] getBuckets() {
+        long[] result = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            result[i] = this.buckets.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Remove every recorded latency.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.buckets.set(i, 0);
+        }
+        this.count.set(0);
+        this.total.set(0);
+        this.max.set(0);
+    }
+
+    private static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (nanos >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,80 @@
+package org.infestedstudios.inv.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Entry point of the menu metrics.
+ * <p>
+ * Metrics are disabled by default. While disabled, instrumented code only reads a single
+ * volatile flag, so metrics can be enabled in production and polled or exported by plugins
+ * with {@link #getAll()}.
+ */
+public final class MenuMetrics {
+
+    private static final Map<String, MenuStats> STATS = new ConcurrentHashMap<>();
+    private static final LatencyHistogram LAYOUT_APPLY_LATENCY = new LatencyHistogram();
+
+    private static volatile boolean enabled = false;
+
+    private MenuMetrics() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Check if metrics are recorded.
+     *
+     * @return true if metrics are enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable or disable metrics recording.
+     *
+     * @param enabled true to record metrics
+     */
+    public static void setEnabled(boolean enabled) {
+        MenuMetrics.enabled = enabled;
+    }
+
+    /**
+     * Get the stats of a metrics id, creating them if needed.
+     *
+     * @param id the metrics id, usually the menu class name
+     * @return the stats of this id
+     */
+    public static MenuStats getStats(String id) {
+        Objects.requireNonNull(id, "id");
+        return STATS.computeIfAbsent(id, MenuStats::new);
+    }
+
+    /**
+     * Get the stats of every metrics id.
+     *
+     * @return an unmodifiable view of the stats, by metrics id
+     */
+    public static Map<String, MenuStats> getAll() {
+        return Collections.unmodifiableMap(STATS);
+    }
+
+    /**
+     * Get the latency of applying compiled layouts, from schemes and templates.
+     *
+     * @return the layout apply latency histogram
+     */
+    public static LatencyHistogram getLayoutApplyLatency() {
+        return LAYOUT_APPLY_LATENCY;
+    }
+
+    /**
+     * Reset every recorded metric.
+     */
+    public static void reset() {
+        STATS.values().forEach(MenuStats::reset);
+        LAYOUT_APPLY_LATENCY.reset();
+    }
+}
@@ -0,0 +1,144 @@
+package org.infestedstudios.inv.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters and latency histograms of all the menus sharing a metrics id.
+ */
+public final class MenuStats {
+
+    private static final int TRACKED_SLOTS = 64;
+
+    private final String id;
+    private final AtomicLong opens = new AtomicLong();
+    private final AtomicLong closes = new AtomicLong();
+    private final AtomicLong clicks = new AtomicLong();
+    private final AtomicLong outsideClicks = new AtomicLong();
+    private final AtomicLongArray slotClicks = new AtomicLongArray(TRACKED_SLOTS);
+    private final LatencyHistogram openLatency = new LatencyHistogram();
+    private final LatencyHistogram closeLatency = new LatencyHistogram();
+    private final LatencyHistogram clickLatency = new LatencyHistogram();
+    private final LatencyHistogram updateLatency = new LatencyHistogram();
+
+    MenuStats(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Record a handled open event.
+     *
+     * @param nanos the time spent handling the event
+     */
+    public void recordOpen(long nanos) {
+        this.opens.incrementAndGet();
+        this.openLatency.record(nanos);
+    }
+
+    /**
+     * Record a handled close event.
+     *
+     * @param nanos the time spent handling the event
+     */
+    public void recordClose(long nanos) {
+        this.closes.incrementAndGet();
+        this.closeLatency.record(nanos);
+    }
+
+    /**
+     * Record a handled click event. Clicks on raw slots past the menu size are in the player
+     * inventory, and are counted as outside clicks like clicks outside of the window.
+     *
+     * @param rawSlot  the clicked raw slot
+     * @param menuSize the size of the menu inventory, the top inventory of the view
+     * @param nanos    the time spent handling the event
+     */
+    public void recordClick(int rawSlot, int menuSize, long nanos) {
+        this.clicks.incrementAndGet();
+        this.clickLatency.record(nanos);
+
+        if (rawSlot >= 0 && rawSlot < menuSize && rawSlot < TRACKED_SLOTS) {
+            this.slotClicks.incrementAndGet(rawSlot);
+        } else {
+            this.outsideClicks.incrementAndGet();
+        }
+    }
+
+    /**
+     * Record a run of an update task.
+     *
+     * @param nanos the time spent running the task
+     */
+    public void recordUpdate(long nanos) {
+        this.updateLatency.record(nanos);
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public long getOpens() {
+        return this.opens.get();
+    }
+
+    public long getCloses() {
+        return this.closes.get();
+    }
+
+    public long getClicks() {
+        return this.clicks.get();
+    }
+
+    /**
+     * Get the number of clicks on a slot of the menu.
+     *
+     * @param rawSlot the raw slot
+     * @return the number of clicks on this slot
+     */
+    public long getSlotClicks(int rawSlot) {
+        return rawSlot >= 0 && rawSlot < TRACKED_SLOTS ? this.slotClicks.get(rawSlot) : 0;
+    }
+
+    /**
+     * Get the number of clicks outside of the menu slots: in the player inventory
+     * or outside of the window.
+     *
+     * @return the number of outside clicks
+     */
+    public long getOutsideClicks() {
+        return this.outsideClicks.get();
+    }
+
+    public LatencyHistogram getOpenLatency() {
+        return this.openLatency;
+    }
+
+    public LatencyHistogram getCloseLatency() {
+        return this.closeLatency;
+    }
+
+    public LatencyHistogram getClickLatency() {
+        return this.clickLatency;
+    }
+
+    public LatencyHistogram getUpdateLatency() {
+        return this.updateLatency;
+    }
+
+    /**
+     * Reset every counter and histogram.
+     */
+    public void reset() {
+        this.opens.set(0);
+        this.closes.set(0);
+        this.clicks.set(0);
+        this.outsideClicks.set(0);
+        for (int i = 0; i < TRACKED_SLOTS; i++) {
+            this.slotClicks.set(i, 0);
+        }
+        this.openLatency.reset();
+        this.closeLatency.reset();
+        this.clickLatency.reset();
+        this.updateLatency.reset();
+    }
+}
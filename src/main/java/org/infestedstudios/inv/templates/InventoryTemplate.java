@@ -2,19 +2,55 @@ package org.infestedstudios.inv.templates;
 
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.ItemStack;
+import org.infestedstudios.inv.CompiledLayout;
 import org.infestedstudios.inv.InfestedInv;
+import org.infestedstudios.inv.metrics.MenuMetrics;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
  * InventoryTemplate allows creating and applying reusable inventory templates.
+ * <p>
+ * Templates can be composed: a template inherits the items of its parent, then of its layers
+ * in the order they were added, and its own items are applied last. The result is flattened
+ * into a {@link CompiledLayout}, cached until the template, its parent or one of its layers changes.
  */
 public class InventoryTemplate {
 
+    // Stamps every change of any template, so a newer change always has a greater version
+    private static final AtomicLong MODIFICATIONS = new AtomicLong();
+
     private final Map<Integer, ItemStack> templateItems = new HashMap<>();
     private final Map<Integer, Consumer<InventoryClickEvent>> clickHandlers = new HashMap<>();
+    private final List<InventoryTemplate> layers = new ArrayList<>();
+    private final InventoryTemplate parent;
+
+    private long version;
+    private long compiledVersion = -1;
+    private CompiledLayout compiled;
+
+    /**
+     * Creates an empty template.
+     */
+    public InventoryTemplate() {
+        this(null);
+    }
+
+    /**
+     * Creates a template inheriting the items of another template.
+     *
+     * @param parent The parent template, may be null.
+     */
+    public InventoryTemplate(InventoryTemplate parent) {
+        this.parent = parent;
+    }
 
     /**
      * Adds an item and its click handler to the template.
@@ -26,6 +62,71 @@ public class InventoryTemplate {
     public void addTemplateItem(int slot, ItemStack item, Consumer<InventoryClickEvent> handler) {
         templateItems.put(slot, item);
         clickHandlers.put(slot, handler);
+        version = MODIFICATIONS.incrementAndGet();
+    }
+
+    /**
+     * Removes an item from the template. Items of the parent or layers in this slot are used again.
+     *
+     * @param slot The slot of the item to remove.
+     */
+    public void removeTemplateItem(int slot) {
+        templateItems.remove(slot);
+        clickHandlers.remove(slot);
+        version = MODIFICATIONS.incrementAndGet();
+    }
+
+    /**
+     * Adds a layer on top of the parent of this template, below its own items.
+     * Layers are applied in the order they are added.
+     *
+     * @param layer The template to use as a layer.
+     */
+    public void addLayer(InventoryTemplate layer) {
+        Objects.requireNonNull(layer, "layer");
+        if (layer.dependsOn(this)) {
+            throw new IllegalArgumentException("Template layers cannot be cyclic");
+        }
+        layers.add(layer);
+        version = MODIFICATIONS.incrementAndGet();
+    }
+
+    /**
+     * Removes a layer from this template.
+     *
+     * @param layer The layer to remove.
+     */
+    public void removeLayer(InventoryTemplate layer) {
+        if (layers.remove(layer)) {
+            version = MODIFICATIONS.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the layers of this template.
+     *
+     * @return An unmodifiable view of the layers.
+     */
+    public List<InventoryTemplate> getLayers() {
+        return Collections.unmodifiableList(layers);
+    }
+
+    /**
+     * Flattens the parent, the layers and the items of this template into a layout.
+     * The layout is cached until one of the flattened templates changes.
+     *
+     * @return The compiled layout of this template.
+     */
+    public synchronized CompiledLayout compile() {
+        long currentVersion = effectiveVersion();
+
+        if (compiled == null || compiledVersion != currentVersion) {
+            CompiledLayout.Builder builder = new CompiledLayout.Builder(maxSlot() + 1);
+            flatten(builder);
+            compiled = builder.build();
+            compiledVersion = currentVersion;
+        }
+        return compiled;
     }
 
     /**
@@ -34,8 +135,70 @@ public class InventoryTemplate {
      * @param inventory The inventory to apply the template to.
      */
     public void applyTemplate(InfestedInv inventory) {
+        if (!MenuMetrics.isEnabled()) {
+            inventory.applyLayout(compile());
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            inventory.applyLayout(compile());
+        } finally {
+            MenuMetrics.getLayoutApplyLatency().record(System.nanoTime() - start);
+        }
+    }
+
+    private void flatten(CompiledLayout.Builder builder) {
+        if (parent != null) {
+            parent.flatten(builder);
+        }
+        for (InventoryTemplate layer : layers) {
+            layer.flatten(builder);
+        }
         for (Map.Entry<Integer, ItemStack> entry : templateItems.entrySet()) {
-            inventory.setItem(entry.getKey(), entry.getValue(), clickHandlers.get(entry.getKey()));
+            builder.set(entry.getKey(), entry.getValue(), clickHandlers.get(entry.getKey()));
+        }
+    }
+
+    // Latest change of the flattened templates. A change anywhere, including removing a layer,
+    // stamps a template with a version greater than every previous one, so the result increases
+    private long effectiveVersion() {
+        long result = version;
+        if (parent != null) {
+            result = Math.max(result, parent.effectiveVersion());
+        }
+        for (InventoryTemplate layer : layers) {
+            result = Math.max(result, layer.effectiveVersion());
+        }
+        return result;
+    }
+
+    private int maxSlot() {
+        int max = -1;
+        if (parent != null) {
+            max = parent.maxSlot();
+        }
+        for (InventoryTemplate layer : layers) {
+            max = Math.max(max, layer.maxSlot());
+        }
+        for (int slot : templateItems.keySet()) {
+            max = Math.max(max, slot);
+        }
+        return max;
+    }
+
+    private boolean dependsOn(InventoryTemplate template) {
+        if (this == template) {
+            return true;
+        }
+        if (parent != null && parent.dependsOn(template)) {
+            return true;
+        }
+        for (InventoryTemplate layer : layers) {
+            if (layer.dependsOn(template)) {
+                return true;
+            }
         }
+        return false;
     }
 }
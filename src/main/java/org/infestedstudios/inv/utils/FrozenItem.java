@@ -0,0 +1,85 @@
+package org.infestedstudios.inv.utils;
+
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Immutable item and click handler built once by an {@link ItemBuilder} and shared by many menus.
+ * <p>
+ * Frozen items can be cached by key with {@link #cached(String, Supplier)}, so identical buttons
+ * are built only once instead of every time a menu is opened.
+ */
+public final class FrozenItem {
+
+    private static final Map<String, FrozenItem> CACHE = new ConcurrentHashMap<>();
+
+    private final ItemStack item;
+    private final Consumer<InventoryClickEvent> clickHandler;
+
+    FrozenItem(ItemStack item, Consumer<InventoryClickEvent> clickHandler) {
+        this.item = Objects.requireNonNull(item, "item");
+        this.clickHandler = clickHandler;
+    }
+
+    /**
+     * Get a cached frozen item, building it from the given builder if it is not cached yet.
+     *
+     * @param key  the cache key of the item
+     * @param spec the builder of the item, only called if the item is not cached
+     * @return the cached frozen item
+     */
+    public static FrozenItem cached(String key, Supplier<ItemBuilder> spec) {
+        Objects.requireNonNull(spec, "spec");
+        return CACHE.computeIfAbsent(key, k -> spec.get().freeze());
+    }
+
+    /**
+     * Remove an item from the cache, so it is built again the next time it is requested.
+     *
+     * @param key the cache key of the item
+     */
+    public static void invalidate(String key) {
+        CACHE.remove(key);
+    }
+
+    /**
+     * Remove every item from the cache.
+     */
+    public static void invalidateAll() {
+        CACHE.clear();
+    }
+
+    /**
+     * Get the shared item. It can be put directly in inventories, which copy it,
+     * but it must never be modified: use {@link #copy()} to get a modifiable item.
+     *
+     * @return the shared item
+     */
+    public ItemStack getItem() {
+        return this.item;
+    }
+
+    /**
+     * Get a modifiable copy of the item.
+     *
+     * @return a copy of the item
+     */
+    public ItemStack copy() {
+        return this.item.clone();
+    }
+
+    /**
+     * Get the click handler of the item.
+     *
+     * @return the click handler, may be null
+     */
+    public Consumer<InventoryClickEvent> getClickHandler() {
+        return this.clickHandler;
+    }
+}
@@ -25,6 +25,9 @@ public class ItemBuilder {
     private final ItemStack item;
     private Consumer<InventoryClickEvent> clickHandler;
 
+    private boolean deferMeta;
+    private ItemMeta pendingMeta;
+
     public static ItemBuilder copyOf(ItemStack item) {
         return new ItemBuilder(item.clone());
     }
@@ -37,12 +40,35 @@ public class ItemBuilder {
         this.item = Objects.requireNonNull(item, "item");
     }
 
+    /**
+     * Collect all the following meta edits on a single {@link ItemMeta}, applied to the item
+     * with one {@link ItemStack#setItemMeta(ItemMeta)} call when the item is built or edited.
+     *
+     * @return this builder
+     */
+    public ItemBuilder deferMeta() {
+        this.deferMeta = true;
+        return this;
+    }
+
     public ItemBuilder edit(Consumer<ItemStack> function) {
+        flushMeta();
         function.accept(this.item);
         return this;
     }
 
     public ItemBuilder meta(Consumer<ItemMeta> metaConsumer) {
+        if (this.deferMeta) {
+            if (this.pendingMeta == null) {
+                this.pendingMeta = this.item.getItemMeta();
+            }
+
+            if (this.pendingMeta != null) {
+                metaConsumer.accept(this.pendingMeta);
+            }
+            return this;
+        }
+
         return edit(item -> {
             ItemMeta meta = item.getItemMeta();
 
@@ -168,10 +194,37 @@ public class ItemBuilder {
     }
 
     public ItemStack build() {
+        flushMeta();
         return this.item;
     }
 
+    /**
+     * Build an immutable copy of the item and its click handler, which can be shared by many menus.
+     *
+     * @return the frozen item
+     */
+    public FrozenItem freeze() {
+        return new FrozenItem(build().clone(), this.clickHandler);
+    }
+
+    /**
+     * Parse the name and lore of the item as {@code {placeholder}} templates, to render
+     * per-viewer variants of the item without building it again.
+     *
+     * @return the item template
+     */
+    public ItemTemplate template() {
+        return new ItemTemplate(build().clone(), this.clickHandler);
+    }
+
     public Consumer<InventoryClickEvent> getClickHandler() {
         return clickHandler;
     }
+
+    private void flushMeta() {
+        if (this.pendingMeta != null) {
+            this.item.setItemMeta(this.pendingMeta);
+            this.pendingMeta = null;
+        }
+    }
 }
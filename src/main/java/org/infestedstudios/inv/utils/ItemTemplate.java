@@ -0,0 +1,91 @@
+package org.infestedstudios.inv.utils;
+
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Item whose name and lore contain {@code {placeholder}} segments, parsed once and shared.
+ * <p>
+ * Each viewer gets a {@link TemplatedItem} from {@link #newInstance()}, holding its own placeholder
+ * values. An instance only renders the lines using placeholders whose value changed, and returns
+ * the same item while nothing changed.
+ *
+ * @see ItemBuilder#template()
+ */
+public final class ItemTemplate {
+
+    private final ItemStack base;
+    private final Consumer<InventoryClickEvent> clickHandler;
+    private final Map<String, Integer> placeholders = new HashMap<>();
+    private final TextTemplate name;
+    private final TextTemplate[] lore;
+
+    ItemTemplate(ItemStack base, Consumer<InventoryClickEvent> clickHandler) {
+        this.base = base;
+        this.clickHandler = clickHandler;
+
+        ItemMeta meta = base.getItemMeta();
+        this.name = meta != null && meta.hasDisplayName() ? TextTemplate.parse(meta.getDisplayName(), this::resolve) : null;
+
+        List<String> lines = meta != null && meta.hasLore() ? meta.getLore() : null;
+        this.lore = new TextTemplate[lines != null ? lines.size() : 0];
+        for (int i = 0; i < this.lore.length; i++) {
+            this.lore[i] = TextTemplate.parse(lines.get(i), this::resolve);
+        }
+    }
+
+    /**
+     * Create a new instance of this template, with all placeholders empty.
+     *
+     * @return a new templated item
+     */
+    public TemplatedItem newInstance() {
+        return new TemplatedItem(this);
+    }
+
+    /**
+     * Get the index of a placeholder, to set its value without any lookup.
+     *
+     * @param name the placeholder name, without braces
+     * @return the placeholder index, or -1 if this template does not use this placeholder
+     */
+    public int placeholder(String name) {
+        Integer index = this.placeholders.get(name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Get the number of different placeholders used by this template.
+     *
+     * @return the placeholder count
+     */
+    public int getPlaceholderCount() {
+        return this.placeholders.size();
+    }
+
+    public Consumer<InventoryClickEvent> getClickHandler() {
+        return this.clickHandler;
+    }
+
+    ItemStack getBase() {
+        return this.base;
+    }
+
+    TextTemplate getName() {
+        return this.name;
+    }
+
+    TextTemplate[] getLore() {
+        return this.lore;
+    }
+
+    private int resolve(String placeholder) {
+        return this.placeholders.computeIfAbsent(placeholder, k -> this.placeholders.size());
+    }
+}
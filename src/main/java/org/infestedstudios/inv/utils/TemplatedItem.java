@@ -0,0 +1,121 @@
+package org.infestedstudios.inv.utils;
+
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Instance of an {@link ItemTemplate} with its own placeholder values, usually one per viewer.
+ * <p>
+ * Setting a value to the one already bound is free. Rendering only renders again the name and
+ * lore lines using a changed placeholder, and returns the previously rendered item when the
+ * rendered text did not change.
+ */
+public final class TemplatedItem {
+
+    private final ItemTemplate template;
+    private final String[] values;
+    private final String[] renderedLore;
+
+    private String renderedName;
+    private ItemStack rendered;
+    private long changed;
+
+    TemplatedItem(ItemTemplate template) {
+        this.template = template;
+        this.values = new String[template.getPlaceholderCount()];
+        this.renderedLore = new String[template.getLore().length];
+    }
+
+    /**
+     * Set the value of a placeholder.
+     *
+     * @param placeholder the placeholder name, without braces
+     * @param value       the value, rendered with {@link String#valueOf(Object)}
+     * @return this item
+     * @throws IllegalArgumentException if the template does not use this placeholder
+     */
+    public TemplatedItem set(String placeholder, Object value) {
+        int index = this.template.placeholder(placeholder);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown placeholder: " + placeholder);
+        }
+        return set(index, value);
+    }
+
+    /**
+     * Set the value of a placeholder by index.
+     *
+     * @param placeholder the placeholder index, from {@link ItemTemplate#placeholder(String)}
+     * @param value       the value, rendered with {@link String#valueOf(Object)}
+     * @return this item
+     */
+    public TemplatedItem set(int placeholder, Object value) {
+        String text = String.valueOf(value);
+
+        if (!text.equals(this.values[placeholder])) {
+            this.values[placeholder] = text;
+            this.changed |= 1L << placeholder;
+        }
+        return this;
+    }
+
+    /**
+     * Render the item with the current placeholder values.
+     * The returned item is shared with the next renders and must not be modified.
+     *
+     * @return the rendered item
+     */
+    public ItemStack render() {
+        if (this.rendered != null && this.changed == 0L) {
+            return this.rendered;
+        }
+
+        boolean full = this.rendered == null;
+        boolean modified = full;
+
+        TextTemplate name = this.template.getName();
+        if (name != null && (full || name.uses(this.changed))) {
+            String text = name.render(this.values);
+            modified |= !text.equals(this.renderedName);
+            this.renderedName = text;
+        }
+
+        TextTemplate[] lore = this.template.getLore();
+        for (int i = 0; i < lore.length; i++) {
+            if (full || lore[i].uses(this.changed)) {
+                String text = lore[i].render(this.values);
+                modified |= !text.equals(this.renderedLore[i]);
+                this.renderedLore[i] = text;
+            }
+        }
+        this.changed = 0L;
+
+        if (modified) {
+            this.rendered = build();
+        }
+        return this.rendered;
+    }
+
+    public Consumer<InventoryClickEvent> getClickHandler() {
+        return this.template.getClickHandler();
+    }
+
+    private ItemStack build() {
+        ItemStack item = this.template.getBase().clone();
+        ItemMeta meta = Objects.requireNonNull(item.getItemMeta(), "meta");
+
+        if (this.renderedName != null) {
+            meta.setDisplayName(this.renderedName);
+        }
+        if (this.renderedLore.length > 0) {
+            meta.setLore(Arrays.asList(this.renderedLore.clone()));
+        }
+        item.setItemMeta(meta);
+        return item;
+    }
+}
@@ -0,0 +1,133 @@
+package org.infestedstudios.inv.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+
+/**
+ * Text with {@code {placeholder}} segments, parsed once into a list of tokens.
+ * <p>
+ * Placeholders are identified by an index given when the template is parsed, so rendering
+ * only reads values from an array, without any lookup or parsing.
+ */
+public final class TextTemplate {
+
+    private final String source;
+    private final String[] literals;
+    private final int[] placeholders;
+    private final long placeholderMask;
+
+    private TextTemplate(String source, String[] literals, int[] placeholders) {
+        this.source = source;
+        this.literals = literals;
+        this.placeholders = placeholders;
+
+        long mask = 0L;
+        for (int placeholder : placeholders) {
+            if (placeholder >= 0) {
+                mask |= 1L << placeholder;
+            }
+        }
+        this.placeholderMask = mask;
+    }
+
+    /**
+     * Parse a text template. Text between braces is a placeholder, other text is kept as is.
+     * An opening brace without a closing brace is kept as text.
+     *
+     * @param source   the text to parse
+     * @param resolver the function giving the index of a placeholder name, between 0 and 63
+     * @return the parsed template
+     */
+    public static TextTemplate parse(String source, ToIntFunction<String> resolver) {
+        Objects.requireNonNull(source, "source");
+        List<String> literals = new ArrayList<>();
+        List<Integer> placeholders = new ArrayList<>();
+
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            int end = c == '{' ? source.indexOf('}', i + 1) : -1;
+
+            if (end > i + 1) {
+                if (literal.length() > 0) {
+                    literals.add(literal.toString());
+                    placeholders.add(-1);
+                    literal.setLength(0);
+                }
+
+                int index = resolver.applyAsInt(source.substring(i + 1, end));
+                if (index < 0 || index >= Long.SIZE) {
+                    throw new IllegalArgumentException("Invalid placeholder index " + index);
+                }
+                literals.add(null);
+                placeholders.add(index);
+                i = end + 1;
+            } else {
+                literal.append(c);
+                i++;
+            }
+        }
+
+        if (literal.length() > 0) {
+            literals.add(literal.toString());
+            placeholders.add(-1);
+        }
+
+        int[] placeholderArray = new int[placeholders.size()];
+        for (int j = 0; j < placeholderArray.length; j++) {
+            placeholderArray[j] = placeholders.get(j);
+        }
+        return new TextTemplate(source, literals.toArray(new String[0]), placeholderArray);
+    }
+
+    /**
+     * Render this template.
+     *
+     * @param values the placeholder values, by placeholder index; null values are rendered as empty text
+     * @return the rendered text
+     */
+    public String render(String[] values) {
+        if (this.placeholderMask == 0L) {
+            return this.source;
+        }
+
+        StringBuilder builder = new StringBuilder(this.source.length() + 16);
+        for (int i = 0; i < this.literals.length; i++) {
+            int placeholder = this.placeholders[i];
+
+            if (placeholder < 0) {
+                builder.append(this.literals[i]);
+            } else if (values[placeholder] != null) {
+                builder.append(values[placeholder]);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Check if this template uses any of the given placeholders.
+     *
+     * @param mask the placeholder mask, where bit {@code n} is set for the placeholder of index {@code n}
+     * @return true if at least one of these placeholders is used
+     */
+    public boolean uses(long mask) {
+        return (this.placeholderMask & mask) != 0L;
+    }
+
+    /**
+     * Get the original text of this template.
+     *
+     * @return the template source
+     */
+    public String getSource() {
+        return this.source;
+    }
+
+    @Override
+    public String toString() {
+        return this.source;
+    }
+}
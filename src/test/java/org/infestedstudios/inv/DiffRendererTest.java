@@ -0,0 +1,75 @@
+package org.infestedstudios.inv;
+
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.infestedstudios.inv.fake.FakePlayer;
+import org.infestedstudios.inv.fake.FakeServer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DiffRendererTest {
+
+    @Test
+    void sameItemIsNotWrittenAgain() {
+        ItemStack[] rendered = {new ItemStack(Material.STONE)};
+        CountingInv inv = openMenu();
+        DiffRenderer renderer = new DiffRenderer(inv, slot -> slot == 0 ? rendered[0] : null);
+
+        renderer.run();
+        rendered[0] = new ItemStack(Material.STONE);
+        renderer.run();
+
+        assertEquals(1, inv.writes);
+    }
+
+    @Test
+    void fingerprintCollisionIsWritten() {
+        ItemStack[] rendered = {new CollidingItem(Material.STONE)};
+        CountingInv inv = openMenu();
+        DiffRenderer renderer = new DiffRenderer(inv, slot -> slot == 0 ? rendered[0] : null);
+
+        renderer.run();
+        rendered[0] = new CollidingItem(Material.DIRT);
+        renderer.run();
+
+        assertEquals(2, inv.writes);
+        assertEquals(Material.DIRT, inv.getInventory().getItem(0).getType());
+    }
+
+    private static CountingInv openMenu() {
+        FakeServer server = FakeServer.install();
+        Player player = server.addPlayer("viewer");
+        CountingInv inv = new CountingInv();
+        FakePlayer.of(player).open(inv.getInventory());
+        return inv;
+    }
+
+    private static final class CountingInv extends InfestedInv {
+
+        private int writes;
+
+        CountingInv() {
+            super(9);
+        }
+
+        @Override
+        protected void updateSlot(int slot, ItemStack item) {
+            this.writes++;
+            super.updateSlot(slot, item);
+        }
+    }
+
+    private static final class CollidingItem extends ItemStack {
+
+        CollidingItem(Material type) {
+            super(type);
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.infestedstudios.inv;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.infestedstudios.inv.fake.FakeServer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InventorySchemeTest {
+
+    private final ItemStack stone = new ItemStack(Material.STONE);
+
+    @Test
+    void unboundRowsPastInventoryAreIgnored() {
+        FakeServer.install();
+        InfestedInv inv = new InfestedInv(27);
+        InventoryScheme scheme = new InventoryScheme()
+                .masks("#########", "#       #", "#########", "         ", "         ", "         ")
+                .bindItem('#', this.stone);
+
+        scheme.apply(inv);
+
+        assertEquals(Material.STONE, inv.getInventory().getItem(26).getType());
+    }
+
+    @Test
+    void boundSlotPastInventoryIsRejected() {
+        FakeServer.install();
+        InfestedInv inv = new InfestedInv(9);
+        InventoryScheme scheme = new InventoryScheme()
+                .masks("         ", "    #    ")
+                .bindItem('#', this.stone);
+
+        assertThrows(IllegalArgumentException.class, () -> scheme.apply(inv));
+    }
+}
@@ -0,0 +1,37 @@
+package org.infestedstudios.inv;
+
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SlotHandlerTableTest {
+
+    private final Consumer<InventoryClickEvent> handler = e -> { };
+
+    @Test
+    void setRangeSetsEverySlotInclusive() {
+        SlotHandlerTable table = new SlotHandlerTable(27);
+
+        table.set(3, 5, this.handler);
+
+        assertNull(table.get(2));
+        assertSame(this.handler, table.get(3));
+        assertSame(this.handler, table.get(5));
+        assertNull(table.get(6));
+    }
+
+    @Test
+    void setEmptyRangeDoesNothing() {
+        SlotHandlerTable table = new SlotHandlerTable(27);
+
+        table.set(5, 3, this.handler);
+
+        for (int slot = 0; slot < 27; slot++) {
+            assertNull(table.get(slot));
+        }
+    }
+}
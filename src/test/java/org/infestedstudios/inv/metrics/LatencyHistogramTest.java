@@ -0,0 +1,49 @@
+package org.infestedstudios.inv.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentileIsCappedByMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(16_304_000);
+
+        assertEquals(16_304_000, histogram.getPercentileNanos(99));
+    }
+
+    @Test
+    void largestValueReportsMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE - 1);
+
+        assertEquals(Long.MAX_VALUE - 1, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int nanos = 0; nanos < 10; nanos++) {
+            histogram.record(nanos);
+        }
+
+        assertEquals(4, histogram.getPercentileNanos(50));
+        assertEquals(9, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    void percentileIsWithinSubBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 1000; nanos++) {
+            histogram.record(nanos * 1000);
+        }
+
+        long p50 = histogram.getPercentileNanos(50);
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 * 17 / 16, "p50 " + p50);
+        long p99 = histogram.getPercentileNanos(99);
+        assertTrue(p99 >= 990_000 && p99 <= 1_000_000, "p99 " + p99);
+    }
+}
@@ -0,0 +1,91 @@
+package org.infestedstudios.inv.templates;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.infestedstudios.inv.CompiledLayout;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class InventoryTemplateTest {
+
+    private final ItemStack stone = new ItemStack(Material.STONE);
+    private final ItemStack dirt = new ItemStack(Material.DIRT);
+
+    @Test
+    void compileIsCachedUntilChanged() {
+        InventoryTemplate template = new InventoryTemplate();
+        template.addTemplateItem(0, this.stone, null);
+
+        assertSame(template.compile(), template.compile());
+    }
+
+    @Test
+    void addLayerRecompilesLayout() {
+        InventoryTemplate layer = new InventoryTemplate();
+        layer.addTemplateItem(1, this.stone, null);
+        InventoryTemplate template = new InventoryTemplate();
+        template.addTemplateItem(0, this.dirt, null);
+        template.compile();
+
+        template.addLayer(layer);
+
+        assertSame(this.stone, template.compile().getItem(1));
+    }
+
+    @Test
+    void removeLayerRecompilesLayout() {
+        InventoryTemplate layer = new InventoryTemplate();
+        layer.addTemplateItem(0, this.stone, null);
+        InventoryTemplate template = new InventoryTemplate();
+        template.addLayer(layer);
+        assertSame(this.stone, template.compile().getItem(0));
+
+        template.removeLayer(layer);
+
+        assertNull(template.compile().getItem(0));
+    }
+
+    @Test
+    void layerEditRecompilesLayout() {
+        InventoryTemplate layer = new InventoryTemplate();
+        layer.addTemplateItem(0, this.stone, null);
+        InventoryTemplate template = new InventoryTemplate();
+        template.addLayer(layer);
+        template.compile();
+
+        layer.addTemplateItem(0, this.dirt, null);
+
+        assertSame(this.dirt, template.compile().getItem(0));
+    }
+
+    @Test
+    void parentEditRecompilesLayout() {
+        InventoryTemplate parent = new InventoryTemplate();
+        parent.addTemplateItem(0, this.stone, null);
+        InventoryTemplate child = new InventoryTemplate(parent);
+        child.addTemplateItem(1, this.dirt, null);
+        assertSame(this.stone, child.compile().getItem(0));
+
+        parent.addTemplateItem(0, this.dirt, null);
+        CompiledLayout edited = child.compile();
+        assertSame(this.dirt, edited.getItem(0));
+
+        parent.removeTemplateItem(0);
+        assertNull(child.compile().getItem(0));
+    }
+
+    @Test
+    void grandparentEditRecompilesLayout() {
+        InventoryTemplate grandparent = new InventoryTemplate();
+        InventoryTemplate parent = new InventoryTemplate(grandparent);
+        InventoryTemplate child = new InventoryTemplate(parent);
+        child.addTemplateItem(0, this.dirt, null);
+        child.compile();
+
+        grandparent.addTemplateItem(1, this.stone, null);
+
+        assertSame(this.stone, child.compile().getItem(1));
+    }
+}
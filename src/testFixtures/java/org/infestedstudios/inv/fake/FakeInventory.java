@@ -0,0 +1,122 @@
+package org.infestedstudios.inv.fake;
+
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * In-memory {@link Inventory} storing its items in an array.
+ * <p>
+ * Viewers are not updated by the inventory itself: they are added and removed by the
+ * fake players opening and closing it.
+ */
+public final class FakeInventory implements Proxies.Handler {
+
+    private final InventoryType type;
+    private final String title;
+    private final ItemStack[] contents;
+    private final List<HumanEntity> viewers = new ArrayList<>();
+
+    private FakeInventory(InventoryType type, int size, String title) {
+        this.type = type;
+        this.title = title;
+        this.contents = new ItemStack[size];
+    }
+
+    /**
+     * Create an inventory.
+     *
+     * @param type  the inventory type
+     * @param size  the inventory size
+     * @param title the inventory title, may be null
+     * @return the inventory
+     */
+    public static Inventory create(InventoryType type, int size, String title) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Invalid inventory size: " + size);
+        }
+        return Proxies.create(Inventory.class, new FakeInventory(type, size, title));
+    }
+
+    /**
+     * Get the state of a fake inventory.
+     *
+     * @param inventory the inventory
+     * @return the fake backing this inventory, or null if it is not a fake
+     */
+    public static FakeInventory of(Inventory inventory) {
+        return Proxies.handlerOf(inventory, FakeInventory.class);
+    }
+
+    public InventoryType getType() {
+        return this.type;
+    }
+
+    public String getTitle() {
+        return this.title;
+    }
+
+    /**
+     * Get the live list of viewers of this inventory.
+     *
+     * @return the viewers
+     */
+    public List<HumanEntity> getViewers() {
+        return this.viewers;
+    }
+
+    @Override
+    public Object handle(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getSize":
+                return this.contents.length;
+            case "getType":
+                return this.type;
+            case "getItem":
+                return this.contents[(Integer) args[0]];
+            case "setItem":
+                this.contents[(Integer) args[0]] = (ItemStack) args[1];
+                return null;
+            case "getContents":
+            case "getStorageContents":
+                return this.contents.clone();
+            case "setContents":
+            case "setStorageContents":
+                ItemStack[] items = (ItemStack[]) args[0];
+                if (items.length > this.contents.length) {
+                    throw new IllegalArgumentException("Invalid inventory size; expected " + this.contents.length + " or less");
+                }
+                Arrays.fill(this.contents, null);
+                System.arraycopy(items, 0, this.contents, 0, items.length);
+                return null;
+            case "firstEmpty":
+                for (int i = 0; i < this.contents.length; i++) {
+                    if (this.contents[i] == null) {
+                        return i;
+                    }
+                }
+                return -1;
+            case "isEmpty":
+                return Arrays.stream(this.contents).allMatch(item -> item == null);
+            case "clear":
+                if (args.length == 0) {
+                    Arrays.fill(this.contents, null);
+                } else {
+                    this.contents[(Integer) args[0]] = null;
+                }
+                return null;
+            case "getViewers":
+                return new ArrayList<>(this.viewers);
+            case "getMaxStackSize":
+                return 64;
+            default:
+                return Proxies.UNHANDLED;
+        }
+    }
+}
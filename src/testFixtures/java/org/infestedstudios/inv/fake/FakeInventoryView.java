@@ -0,0 +1,55 @@
+package org.infestedstudios.inv.fake;
+
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+
+/**
+ * {@link InventoryView} of a fake player looking at an inventory.
+ */
+public final class FakeInventoryView extends InventoryView {
+
+    private final Inventory top;
+    private final Inventory bottom;
+    private final HumanEntity player;
+
+    /**
+     * Create a view.
+     *
+     * @param top    the opened inventory
+     * @param bottom the inventory of the player
+     * @param player the player
+     */
+    public FakeInventoryView(Inventory top, Inventory bottom, HumanEntity player) {
+        this.top = top;
+        this.bottom = bottom;
+        this.player = player;
+    }
+
+    @Override
+    public Inventory getTopInventory() {
+        return this.top;
+    }
+
+    @Override
+    public Inventory getBottomInventory() {
+        return this.bottom;
+    }
+
+    @Override
+    public HumanEntity getPlayer() {
+        return this.player;
+    }
+
+    @Override
+    public InventoryType getType() {
+        return this.top.getType();
+    }
+
+    @Override
+    public String getTitle() {
+        FakeInventory fake = FakeInventory.of(this.top);
+        return fake != null && fake.getTitle() != null ? fake.getTitle() : getType().getDefaultTitle();
+    }
+}
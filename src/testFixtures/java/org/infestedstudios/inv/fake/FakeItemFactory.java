@@ -0,0 +1,42 @@
+package org.infestedstudios.inv.fake;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+
+/**
+ * {@link ItemFactory} creating {@link FakeItemMeta} instances, applicable to every material except air.
+ */
+final class FakeItemFactory implements Proxies.Handler {
+
+    private FakeItemFactory() {
+    }
+
+    static ItemFactory create() {
+        return Proxies.create(ItemFactory.class, new FakeItemFactory());
+    }
+
+    @Override
+    public Object handle(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getItemMeta":
+                return args[0] == Material.AIR ? null : FakeItemMeta.create();
+            case "isApplicable":
+                return args[0] == null || FakeItemMeta.of((ItemMeta) args[0]) != null;
+            case "asMetaFor":
+                return args[0];
+            case "updateMaterial":
+                return args[1];
+            case "equals":
+                if (args.length == 2) {
+                    return Objects.equals(args[0], args[1]);
+                }
+                return Proxies.UNHANDLED;
+            default:
+                return Proxies.UNHANDLED;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.infestedstudios.inv.fake;
+
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemFlag;
+import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * In-memory {@link ItemMeta}. Every {@code setX} property is stored and returned by {@code getX}
+ * and {@code hasX}; enchantments and item flags are also supported. Lists are copied like the
+ * real implementation does, so callers cannot modify the meta through a returned list.
+ * Like the real item meta, it is also {@link Damageable}, which {@link org.bukkit.inventory.ItemStack#equals(Object)}
+ * relies on to compare the durability of items.
+ */
+public final class FakeItemMeta implements Proxies.Handler {
+
+    private final Map<String, Object> properties = new HashMap<>();
+    private final Map<Enchantment, Integer> enchants = new LinkedHashMap<>();
+    private final Set<ItemFlag> flags = EnumSet.noneOf(ItemFlag.class);
+
+    private FakeItemMeta() {
+    }
+
+    /**
+     * Create an empty item meta.
+     *
+     * @return the item meta
+     */
+    public static ItemMeta create() {
+        return Proxies.create(DamageableMeta.class, new FakeItemMeta());
+    }
+
+    /**
+     * Get the state of a fake item meta.
+     *
+     * @param meta the item meta
+     * @return the fake backing this meta, or null if it is not a fake
+     */
+    public static FakeItemMeta of(ItemMeta meta) {
+        return Proxies.handlerOf(meta, FakeItemMeta.class);
+    }
+
+    @Override
+    public Object handle(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+
+        switch (name) {
+            case "clone":
+                return copy();
+            case "equals":
+                FakeItemMeta other = args[0] instanceof ItemMeta ? of((ItemMeta) args[0]) : null;
+                return other != null && sameAs(other);
+            case "hashCode":
+                return Objects.hash(this.properties, this.enchants, this.flags);
+            case "toString":
+                return "FakeItemMeta" + this.properties;
+            case "addEnchant":
+                return this.enchants.put((Enchantment) args[0], (Integer) args[1]) == null;
+            case "removeEnchant":
+                return this.enchants.remove((Enchantment) args[0]) != null;
+            case "hasEnchant":
+                return this.enchants.containsKey((Enchantment) args[0]);
+            case "hasEnchants":
+                return !this.enchants.isEmpty();
+            case "getEnchantLevel":
+                return this.enchants.getOrDefault((Enchantment) args[0], 0);
+            case "getEnchants":
+                return Collections.unmodifiableMap(new LinkedHashMap<>(this.enchants));
+            case "addItemFlags":
+                Collections.addAll(this.flags, (ItemFlag[]) args[0]);
+                return null;
+            case "removeItemFlags":
+                for (ItemFlag flag : (ItemFlag[]) args[0]) {
+                    this.flags.remove(flag);
+                }
+                return null;
+            case "hasItemFlag":
+                return this.flags.contains((ItemFlag) args[0]);
+            case "getItemFlags":
+                return Collections.unmodifiableSet(EnumSet.copyOf(this.flags));
+            default:
+                break;
+        }
+
+        if (name.startsWith("set") && args.length == 1) {
+            this.properties.put(name.substring(3), copyValue(args[0]));
+            return null;
+        }
+        if (name.startsWith("get") && args.length == 0 && this.properties.containsKey(name.substring(3))) {
+            return copyValue(this.properties.get(name.substring(3)));
+        }
+        if (name.startsWith("has") && args.length == 0 && method.getReturnType() == boolean.class) {
+            return this.properties.get(name.substring(3)) != null;
+        }
+        return Proxies.UNHANDLED;
+    }
+
+    private boolean sameAs(FakeItemMeta other) {
+        return this.properties.equals(other.properties)
+                && this.enchants.equals(other.enchants)
+                && this.flags.equals(other.flags);
+    }
+
+    private ItemMeta copy() {
+        FakeItemMeta copy = new FakeItemMeta();
+        this.properties.forEach((key, value) -> copy.properties.put(key, copyValue(value)));
+        copy.enchants.putAll(this.enchants);
+        copy.flags.addAll(this.flags);
+        return Proxies.create(DamageableMeta.class, copy);
+    }
+
+    private static Object copyValue(Object value) {
+        return value instanceof List ? new ArrayList<>((List<?>) value) : value;
+    }
+
+    // Both interfaces declare clone(), so the proxy needs an interface overriding it for both
+    interface DamageableMeta extends ItemMeta, Damageable {
+
+        @Override
+        DamageableMeta clone();
+    }
+}
@@ -0,0 +1,179 @@
+package org.infestedstudios.inv.fake;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryOpenEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+
+import java.lang.reflect.Method;
+import java.util.UUID;
+
+/**
+ * In-memory {@link Player} able to open and close inventories and to click in its open inventory.
+ * <p>
+ * Like on a real server, {@link Player#openInventory(Inventory)} and {@link Player#closeInventory()}
+ * call the open and close events on the plugin manager of the installed server.
+ */
+public final class FakePlayer implements Proxies.Handler {
+
+    private final UUID uniqueId;
+    private final String name;
+    private final Inventory playerInventory;
+    private final Player player;
+    private final InventoryView craftingView;
+
+    private InventoryView openView;
+
+    private FakePlayer(UUID uniqueId, String name) {
+        this.uniqueId = uniqueId;
+        this.name = name;
+        this.playerInventory = FakeInventory.create(InventoryType.PLAYER, InventoryType.PLAYER.getDefaultSize(), null);
+        this.player = Proxies.create(Player.class, this);
+        this.craftingView = new FakeInventoryView(
+                FakeInventory.create(InventoryType.CRAFTING, InventoryType.CRAFTING.getDefaultSize(), null),
+                this.playerInventory, this.player);
+        this.openView = this.craftingView;
+    }
+
+    /**
+     * Create a player.
+     *
+     * @param uniqueId the player id
+     * @param name     the player name
+     * @return the player
+     */
+    public static Player create(UUID uniqueId, String name) {
+        return new FakePlayer(uniqueId, name).player;
+    }
+
+    /**
+     * Get the state of a fake player.
+     *
+     * @param player the player
+     * @return the fake backing this player, or null if it is not a fake
+     */
+    public static FakePlayer of(Player player) {
+        return Proxies.handlerOf(player, FakePlayer.class);
+    }
+
+    public Player getPlayer() {
+        return this.player;
+    }
+
+    /**
+     * Get the view of the inventory opened by this player, or of its crafting grid if it has no open inventory.
+     *
+     * @return the open view
+     */
+    public InventoryView getOpenView() {
+        return this.openView;
+    }
+
+    /**
+     * Open an inventory, closing the previous one. The inventory is not opened if the open event is cancelled.
+     *
+     * @param inventory the inventory to open
+     * @return the new view, or null if the open event was cancelled
+     */
+    public InventoryView open(Inventory inventory) {
+        close();
+
+        InventoryView view = new FakeInventoryView(inventory, this.playerInventory, this.player);
+        if (callEvent(new InventoryOpenEvent(view)).isCancelled()) {
+            return null;
+        }
+
+        this.openView = view;
+        FakeInventory fake = FakeInventory.of(inventory);
+        if (fake != null) {
+            fake.getViewers().add(this.player);
+        }
+        return this.openView;
+    }
+
+    /**
+     * Close the open inventory. The close event is called while the player is still a viewer of the inventory.
+     *
+     * @return the closed view, or null if no inventory was open
+     */
+    public InventoryView close() {
+        if (this.openView == this.craftingView) {
+            return null;
+        }
+
+        // The view is reset first, so a close event handler opening an inventory does not close it again
+        InventoryView closed = this.openView;
+        this.openView = this.craftingView;
+
+        callEvent(new InventoryCloseEvent(closed));
+        FakeInventory fake = FakeInventory.of(closed.getTopInventory());
+        if (fake != null) {
+            fake.getViewers().remove(this.player);
+        }
+        return closed;
+    }
+
+    /**
+     * Create a click event on a slot of the open view, without calling it.
+     *
+     * @param rawSlot the raw slot of the view
+     * @param click   the click type
+     * @return the click event
+     */
+    public InventoryClickEvent click(int rawSlot, ClickType click) {
+        InventoryType.SlotType slotType = rawSlot < 0 ? InventoryType.SlotType.OUTSIDE : InventoryType.SlotType.CONTAINER;
+        return new InventoryClickEvent(this.openView, slotType, rawSlot, click, InventoryAction.PICKUP_ALL);
+    }
+
+    /**
+     * Click on a slot of the open view, calling the click event.
+     *
+     * @param rawSlot the raw slot of the view
+     * @param click   the click type
+     * @return the called event
+     */
+    public InventoryClickEvent performClick(int rawSlot, ClickType click) {
+        return callEvent(click(rawSlot, click));
+    }
+
+    @Override
+    public Object handle(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getUniqueId":
+                return this.uniqueId;
+            case "getName":
+            case "getDisplayName":
+                return this.name;
+            case "getInventory":
+                return this.playerInventory;
+            case "getOpenInventory":
+                return this.openView;
+            case "openInventory":
+                if (args.length == 1 && args[0] instanceof Inventory) {
+                    return open((Inventory) args[0]);
+                }
+                return Proxies.UNHANDLED;
+            case "closeInventory":
+                close();
+                return null;
+            case "isOnline":
+                return true;
+            default:
+                return Proxies.UNHANDLED;
+        }
+    }
+
+    private static <E extends Event> E callEvent(E event) {
+        if (Bukkit.getServer() != null && Bukkit.getPluginManager() != null) {
+            Bukkit.getPluginManager().callEvent(event);
+        }
+        return event;
+    }
+}
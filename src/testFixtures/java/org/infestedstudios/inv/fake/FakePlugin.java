@@ -0,0 +1,65 @@
+package org.infestedstudios.inv.fake;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.Method;
+import java.util.logging.Logger;
+
+/**
+ * {@link Plugin} owning the listeners and tasks registered by the code under test.
+ */
+public final class FakePlugin implements Proxies.Handler {
+
+    private final String name;
+    private final Logger logger;
+
+    private boolean enabled = true;
+
+    private FakePlugin(String name) {
+        this.name = name;
+        this.logger = Logger.getLogger(name);
+    }
+
+    /**
+     * Create an enabled plugin.
+     *
+     * @param name the plugin name
+     * @return the plugin
+     */
+    public static Plugin create(String name) {
+        return Proxies.create(Plugin.class, new FakePlugin(name));
+    }
+
+    /**
+     * Get the state of a fake plugin.
+     *
+     * @param plugin the plugin
+     * @return the fake backing this plugin, or null if it is not a fake
+     */
+    public static FakePlugin of(Plugin plugin) {
+        return Proxies.handlerOf(plugin, FakePlugin.class);
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Object handle(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getName":
+                return this.name;
+            case "getLogger":
+                return this.logger;
+            case "isEnabled":
+                return this.enabled;
+            case "getServer":
+                return Bukkit.getServer();
+            case "toString":
+                return "FakePlugin{" + this.name + "}";
+            default:
+                return Proxies.UNHANDLED;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package org.infestedstudios.inv.fake;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link PluginManager} acting as a synchronous event bus.
+ * <p>
+ * Listeners are registered with their {@link EventHandler} methods, like on a real server, and
+ * events are dispatched by priority to the handlers of the event class and of its superclasses.
+ * Handler exceptions are logged and do not stop the dispatch.
+ */
+public final class FakePluginManager implements Proxies.Handler {
+
+    private final PluginManager pluginManager;
+    private final List<RegisteredHandler> handlers = new ArrayList<>();
+    private final Map<Class<?>, RegisteredHandler[]> handlersByEvent = new HashMap<>();
+
+    FakePluginManager() {
+        this.pluginManager = Proxies.create(PluginManager.class, this);
+    }
+
+    public PluginManager getPluginManager() {
+        return this.pluginManager;
+    }
+
+    /**
+     * Call an event on every registered handler.
+     *
+     * @param event the event to call
+     * @param <E>   the event type
+     * @return the event
+     */
+    public <E extends Event> E callEvent(E event) {
+        RegisteredHandler[] eventHandlers = this.handlersByEvent.computeIfAbsent(event.getClass(), this::resolveHandlers);
+
+        for (RegisteredHandler handler : eventHandlers) {
+            if (handler.ignoreCancelled && event instanceof Cancellable && ((Cancellable) event).isCancelled()) {
+                continue;
+            }
+
+            try {
+                handler.method.invoke(handler.listener, event);
+            } catch (InvocationTargetException e) {
+                handler.plugin.getLogger().warning("Could not pass event " + event.getEventName() + ": " + e.getCause());
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return event;
+    }
+
+    /**
+     * Disable a plugin: call a {@link PluginDisableEvent}, then unregister its listeners and services.
+     *
+     * @param plugin the plugin to disable
+     */
+    public void disablePlugin(Plugin plugin) {
+        callEvent(new PluginDisableEvent(plugin));
+        this.handlers.removeIf(handler -> handler.plugin == plugin);
+        this.handlersByEvent.clear();
+
+        FakeServicesManager servicesManager = Proxies.handlerOf(Bukkit.getServicesManager(), FakeServicesManager.class);
+        if (servicesManager != null) {
+            servicesManager.unregisterAll(plugin);
+        }
+    }
+
+    @Override
+    public Object handle(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "registerEvents":
+                registerEvents((Listener) args[0], (Plugin) args[1]);
+                return null;
+            case "callEvent":
+                callEvent((Event) args[0]);
+                return null;
+            case "disablePlugin":
+                disablePlugin((Plugin) args[0]);
+                return null;
+            case "isPluginEnabled":
+                return args[0] instanceof Plugin && ((Plugin) args[0]).isEnabled();
+            default:
+                return Proxies.UNHANDLED;
+        }
+    }
+
+    private void registerEvents(Listener listener, Plugin plugin) {
+        for (Method method : listener.getClass().getMethods()) {
+            EventHandler annotation = method.getAnnotation(EventHandler.class);
+            if (annotation == null || method.getParameterCount() != 1
+                    || !Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                continue;
+            }
+            this.handlers.add(new RegisteredHandler(listener, plugin, method, annotation));
+        }
+        this.handlersByEvent.clear();
+    }
+
+    private RegisteredHandler[] resolveHandlers(Class<?> eventClass) {
+        return this.handlers.stream()
+                .filter(handler -> handler.eventClass.isAssignableFrom(eventClass))
+                .sorted(Comparator.comparingInt(handler -> handler.priority))
+                .toArray(RegisteredHandler[]::new);
+    }
+
+    private static final class RegisteredHandler {
+
+        private final Listener listener;
+        private final Plugin plugin;
+        private final Method method;
+        private final Class<?> eventClass;
+        private final int priority;
+        private final boolean ignoreCancelled;
+
+        private RegisteredHandler(Listener listener, Plugin plugin, Method method, EventHandler annotation) {
+            this.listener = listener;
+            this.plugin = plugin;
+            this.method = method;
+            // Like Bukkit, handler methods of non public listener classes are accepted
+            this.method.setAccessible(true);
+            this.eventClass = method.getParameterTypes()[0];
+            this.priority = annotation.priority().getSlot();
+            this.ignoreCancelled = annotation.ignoreCancelled();
+        }
+    }
+}
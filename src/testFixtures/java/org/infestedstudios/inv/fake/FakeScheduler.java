@@ -0,0 +1,191 @@
+package org.infestedstudios.inv.fake;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * {@link BukkitScheduler} running its tasks only when {@link #tick()} is called.
+ * <p>
+ * Asynchronous tasks are run on the ticking thread like synchronous ones, so a tick runs every
+ * task due at this tick, in the order they were scheduled.
+ */
+public final class FakeScheduler implements Proxies.Handler {
+
+    private final BukkitScheduler scheduler;
+    private final List<ScheduledTask> tasks = new ArrayList<>();
+
+    private long currentTick;
+    private int nextId = 1;
+
+    FakeScheduler() {
+        this.scheduler = Proxies.create(BukkitScheduler.class, this);
+    }
+
+    public BukkitScheduler getScheduler() {
+        return this.scheduler;
+    }
+
+    /**
+     * Get the number of ticks run since the scheduler was created.
+     *
+     * @return the current tick
+     */
+    public long getCurrentTick() {
+        return this.currentTick;
+    }
+
+    /**
+     * Get the number of scheduled tasks.
+     *
+     * @return the pending task count
+     */
+    public int getPendingTaskCount() {
+        return (int) this.tasks.stream().filter(task -> !task.cancelled).count();
+    }
+
+    /**
+     * Run one tick: every task due at this tick is run, and repeating tasks are scheduled again.
+     * Tasks scheduled while ticking without a delay run at the next tick.
+     */
+    public void tick() {
+        this.currentTick++;
+
+        List<ScheduledTask> due = new ArrayList<>();
+        for (Iterator<ScheduledTask> it = this.tasks.iterator(); it.hasNext(); ) {
+            ScheduledTask task = it.next();
+            if (task.cancelled) {
+                it.remove();
+            } else if (task.nextRun <= this.currentTick) {
+                due.add(task);
+            }
+        }
+
+        for (ScheduledTask task : due) {
+            if (task.cancelled) {
+                continue;
+            }
+            try {
+                task.runnable.run();
+            } catch (RuntimeException e) {
+                task.owner.getLogger().warning("Task #" + task.id + " generated an exception: " + e);
+            }
+
+            // Finished tasks are removed at the next tick
+            if (task.period > 0 && !task.cancelled) {
+                task.nextRun = this.currentTick + task.period;
+            } else {
+                task.cancelled = true;
+            }
+        }
+    }
+
+    /**
+     * Run several ticks.
+     *
+     * @param ticks the number of ticks to run
+     */
+    public void tick(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            tick();
+        }
+    }
+
+    @Override
+    public Object handle(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+
+        switch (name) {
+            case "runTask":
+            case "runTaskAsynchronously":
+                return schedule(args, 0L, -1L);
+            case "runTaskLater":
+            case "runTaskLaterAsynchronously":
+                return schedule(args, (Long) args[2], -1L);
+            case "runTaskTimer":
+            case "runTaskTimerAsynchronously":
+                return schedule(args, (Long) args[2], (Long) args[3]);
+            case "scheduleSyncDelayedTask":
+                return schedule(args, args.length > 2 ? (Long) args[2] : 0L, -1L).getTaskId();
+            case "scheduleSyncRepeatingTask":
+                return schedule(args, (Long) args[2], (Long) args[3]).getTaskId();
+            case "cancelTask":
+                this.tasks.stream().filter(task -> task.id == (Integer) args[0]).forEach(task -> task.cancelled = true);
+                return null;
+            case "cancelTasks":
+                this.tasks.stream().filter(task -> task.owner == args[0]).forEach(task -> task.cancelled = true);
+                return null;
+            case "isQueued":
+            case "isCurrentlyRunning":
+                return this.tasks.stream().anyMatch(task -> task.id == (Integer) args[0] && !task.cancelled);
+            case "getPendingTasks":
+                List<BukkitTask> pending = new ArrayList<>();
+                this.tasks.stream().filter(task -> !task.cancelled).forEach(task -> pending.add(task.bukkitTask));
+                return pending;
+            default:
+                return Proxies.UNHANDLED;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private BukkitTask schedule(Object[] args, long delay, long period) {
+        Plugin owner = (Plugin) args[0];
+        ScheduledTask task = new ScheduledTask(this.nextId++, owner, period);
+
+        if (args[1] instanceof Runnable) {
+            task.runnable = (Runnable) args[1];
+        } else {
+            Consumer<BukkitTask> consumer = (Consumer<BukkitTask>) args[1];
+            BukkitTask bukkitTask = task.bukkitTask;
+            task.runnable = () -> consumer.accept(bukkitTask);
+        }
+
+        task.nextRun = this.currentTick + Math.max(delay, 1L);
+        this.tasks.add(task);
+        return task.bukkitTask;
+    }
+
+    private static final class ScheduledTask implements Proxies.Handler {
+
+        private final int id;
+        private final Plugin owner;
+        private final long period;
+        private final BukkitTask bukkitTask;
+
+        private Runnable runnable;
+        private long nextRun;
+        private boolean cancelled;
+
+        private ScheduledTask(int id, Plugin owner, long period) {
+            this.id = id;
+            this.owner = owner;
+            this.period = period;
+            this.bukkitTask = Proxies.create(BukkitTask.class, this);
+        }
+
+        @Override
+        public Object handle(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "getTaskId":
+                    return this.id;
+                case "getOwner":
+                    return this.owner;
+                case "isSync":
+                    return true;
+                case "isCancelled":
+                    return this.cancelled;
+                case "cancel":
+                    this.cancelled = true;
+                    return null;
+                default:
+                    return Proxies.UNHANDLED;
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.infestedstudios.inv.fake;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.ItemFactory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * In-memory Bukkit {@link Server} creating {@link FakeInventory} inventories and {@link FakeItemMeta} metas,
+ * with a manually ticked {@link FakeScheduler}, a synchronous event bus, the {@link FakePluginManager},
+ * and an in-memory {@link FakeServicesManager}.
+ * <p>
+ * Bukkit only accepts one server per JVM, so the server is installed once by {@link #install()}
+ * and shared by every benchmark or test of the JVM.
+ */
+public final class FakeServer implements Proxies.Handler {
+
+    private static FakeServer instance;
+
+    private final Logger logger = Logger.getLogger("FakeServer");
+    private final ItemFactory itemFactory = FakeItemFactory.create();
+    private final FakeScheduler scheduler = new FakeScheduler();
+    private final FakePluginManager pluginManager = new FakePluginManager();
+    private final FakeServicesManager servicesManager = new FakeServicesManager();
+    private final Map<UUID, Player> players = new LinkedHashMap<>();
+    private final Server server;
+
+    private FakeServer() {
+        this.server = Proxies.create(Server.class, this);
+    }
+
+    /**
+     * Install the fake server as the Bukkit server, if it is not installed yet.
+     *
+     * @return the fake server
+     * @throws IllegalStateException if another server is already installed
+     */
+    public static synchronized FakeServer install() {
+        if (instance == null) {
+            if (Bukkit.getServer() != null) {
+                throw new IllegalStateException("Another Bukkit server is already installed");
+            }
+            FakeServer server = new FakeServer();
+            Bukkit.setServer(server.server);
+            instance = server;
+        }
+        return instance;
+    }
+
+    public Server getServer() {
+        return this.server;
+    }
+
+    public FakeScheduler getScheduler() {
+        return this.scheduler;
+    }
+
+    public FakePluginManager getPluginManager() {
+        return this.pluginManager;
+    }
+
+    public FakeServicesManager getServicesManager() {
+        return this.servicesManager;
+    }
+
+    /**
+     * Run one server tick.
+     */
+    public void tick() {
+        this.scheduler.tick();
+    }
+
+    /**
+     * Add an online player.
+     *
+     * @param name the player name
+     * @return the player
+     */
+    public Player addPlayer(String name) {
+        Player player = FakePlayer.create(UUID.nameUUIDFromBytes(("FakePlayer:" + name).getBytes()), name);
+        this.players.put(player.getUniqueId(), player);
+        return player;
+    }
+
+    /**
+     * Remove an online player: call a {@link PlayerQuitEvent}, then close its inventory.
+     *
+     * @param player the player
+     */
+    public void removePlayer(Player player) {
+        if (this.players.remove(player.getUniqueId()) != null) {
+            this.pluginManager.callEvent(new PlayerQuitEvent(player, player.getName() + " left the game"));
+            player.closeInventory();
+        }
+    }
+
+    /**
+     * Remove every online player.
+     */
+    public void clearPlayers() {
+        new ArrayList<>(this.players.values()).forEach(this::removePlayer);
+    }
+
+    @Override
+    public Object handle(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getName":
+                return "FakeServer";
+            case "getVersion":
+            case "getBukkitVersion":
+                return "1.16.1-R0.1-SNAPSHOT";
+            case "getLogger":
+                return this.logger;
+            case "getItemFactory":
+                return this.itemFactory;
+            case "getScheduler":
+                return this.scheduler.getScheduler();
+            case "getPluginManager":
+                return this.pluginManager.getPluginManager();
+            case "getServicesManager":
+                return this.servicesManager.getServicesManager();
+            case "getOnlinePlayers":
+                return Collections.unmodifiableCollection(new ArrayList<>(this.players.values()));
+            case "getPlayer":
+                if (args[0] instanceof UUID) {
+                    return this.players.get(args[0]);
+                }
+                return this.players.values().stream().filter(p -> p.getName().equals(args[0])).findFirst().orElse(null);
+            case "isPrimaryThread":
+                return true;
+            case "createInventory":
+                return createInventory(args);
+            default:
+                return Proxies.UNHANDLED;
+        }
+    }
+
+    private Object createInventory(Object[] args) {
+        String title = args.length > 2 ? (String) args[2] : null;
+
+        if (args[1] instanceof InventoryType) {
+            InventoryType type = (InventoryType) args[1];
+            return FakeInventory.create(type, type.getDefaultSize(), title);
+        }
+
+        int size = (Integer) args[1];
+        if (size % 9 != 0) {
+            throw new IllegalArgumentException("Chests must have a size that is a multiple of 9!");
+        }
+        return FakeInventory.create(InventoryType.CHEST, size, title);
+    }
+}
@@ -0,0 +1,88 @@
+package org.infestedstudios.inv.fake;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.RegisteredServiceProvider;
+import org.bukkit.plugin.ServicePriority;
+import org.bukkit.plugin.ServicesManager;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * {@link ServicesManager} keeping the registered providers of each service in memory,
+ * sorted by priority like on a real server.
+ */
+public final class FakeServicesManager implements Proxies.Handler {
+
+    private final ServicesManager servicesManager;
+    private final Map<Class<?>, List<RegisteredServiceProvider<?>>> providers = new LinkedHashMap<>();
+
+    FakeServicesManager() {
+        this.servicesManager = Proxies.create(ServicesManager.class, this);
+    }
+
+    public ServicesManager getServicesManager() {
+        return this.servicesManager;
+    }
+
+    /**
+     * Unregister every provider of a plugin.
+     *
+     * @param plugin the plugin
+     */
+    public void unregisterAll(Plugin plugin) {
+        this.providers.values().forEach(list -> list.removeIf(provider -> provider.getPlugin() == plugin));
+        this.providers.values().removeIf(List::isEmpty);
+    }
+
+    @Override
+    public Object handle(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "register":
+                register((Class<?>) args[0], args[1], (Plugin) args[2], (ServicePriority) args[3]);
+                return null;
+            case "unregisterAll":
+                unregisterAll((Plugin) args[0]);
+                return null;
+            case "unregister":
+                Object provider = args[args.length - 1];
+                this.providers.values().forEach(list -> list.removeIf(registration -> registration.getProvider() == provider));
+                this.providers.values().removeIf(List::isEmpty);
+                return null;
+            case "load":
+                List<RegisteredServiceProvider<?>> registrations = this.providers.get((Class<?>) args[0]);
+                return registrations == null ? null : registrations.get(0).getProvider();
+            case "getRegistration":
+                registrations = this.providers.get((Class<?>) args[0]);
+                return registrations == null ? null : registrations.get(0);
+            case "getRegistrations":
+                if (args[0] instanceof Plugin) {
+                    return this.providers.values().stream()
+                            .flatMap(List::stream)
+                            .filter(registration -> registration.getPlugin() == args[0])
+                            .collect(Collectors.toList());
+                }
+                registrations = this.providers.get((Class<?>) args[0]);
+                return registrations == null ? Collections.emptyList() : new ArrayList<>(registrations);
+            case "getKnownServices":
+                return new ArrayList<>(this.providers.keySet());
+            case "isProvidedFor":
+                return this.providers.containsKey((Class<?>) args[0]);
+            default:
+                return Proxies.UNHANDLED;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void register(Class<?> service, Object provider, Plugin plugin, ServicePriority priority) {
+        List<RegisteredServiceProvider<?>> registrations = this.providers.computeIfAbsent(service, k -> new ArrayList<>());
+        registrations.add(new RegisteredServiceProvider(service, provider, priority, plugin));
+        // Highest priority first, like the Bukkit implementation
+        Collections.sort((List) registrations);
+    }
+}
@@ -0,0 +1,151 @@
+package org.infestedstudios.inv.fake;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Creates the dynamic proxies backing the fake Bukkit interfaces.
+ * <p>
+ * Bukkit interfaces have hundreds of methods and the fakes only need a few of them, so every
+ * fake is a proxy: handled methods are implemented by a {@link Handler}, the other methods return
+ * the default value of their return type.
+ */
+final class Proxies {
+
+    /**
+     * Result of a handler for a method it does not implement.
+     */
+    static final Object UNHANDLED = new Object();
+
+    private Proxies() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Create a proxy implementing an interface.
+     *
+     * @param type    the interface to implement
+     * @param handler the handler of the methods of the proxy
+     * @param <T>     the type of the interface
+     * @return the proxy
+     */
+    static <T> T create(Class<T> type, Handler handler) {
+        InvocationHandler invocationHandler = new ProxyInvocationHandler(handler);
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocationHandler));
+    }
+
+    /**
+     * Get the handler of a proxy created by {@link #create(Class, Handler)}.
+     *
+     * @param proxy the proxy
+     * @param type  the expected handler type
+     * @param <H>   the handler type
+     * @return the handler, or null if the object is not a fake of this type
+     */
+    static <H extends Handler> H handlerOf(Object proxy, Class<H> type) {
+        if (proxy == null || !Proxy.isProxyClass(proxy.getClass())) {
+            return null;
+        }
+
+        InvocationHandler invocationHandler = Proxy.getInvocationHandler(proxy);
+        if (!(invocationHandler instanceof ProxyInvocationHandler)) {
+            return null;
+        }
+
+        Handler handler = ((ProxyInvocationHandler) invocationHandler).handler;
+        return type.isInstance(handler) ? type.cast(handler) : null;
+    }
+
+    /**
+     * Get the default value of a type: 0 or false for primitives, null otherwise.
+     *
+     * @param type the type
+     * @return the default value
+     */
+    static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == float.class) {
+            return 0F;
+        }
+        if (type == double.class) {
+            return 0D;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+
+    /**
+     * Implementation of the methods of a fake.
+     */
+    interface Handler {
+
+        /**
+         * Handle a method call.
+         *
+         * @param proxy  the proxy the method was called on
+         * @param method the called method
+         * @param args   the arguments, never null
+         * @return the result, or {@link #UNHANDLED} if this method is not implemented
+         * @throws Throwable any exception thrown by the method
+         */
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable;
+    }
+
+    private static final class ProxyInvocationHandler implements InvocationHandler {
+
+        private static final Object[] NO_ARGS = new Object[0];
+
+        private final Handler handler;
+
+        private ProxyInvocationHandler(Handler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object[] arguments = args != null ? args : NO_ARGS;
+            Object result = this.handler.handle(proxy, method, arguments);
+            if (result != UNHANDLED) {
+                return result;
+            }
+
+            switch (method.getName()) {
+                case "equals":
+                    if (arguments.length == 1 && method.getParameterTypes()[0] == Object.class) {
+                        return proxy == arguments[0];
+                    }
+                    break;
+                case "hashCode":
+                    if (arguments.length == 0) {
+                        return System.identityHashCode(proxy);
+                    }
+                    break;
+                case "toString":
+                    if (arguments.length == 0) {
+                        return this.handler.getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+                    }
+                    break;
+                default:
+                    break;
+            }
+            return defaultValue(method.getReturnType());
+        }
+    }
+}